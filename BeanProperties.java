@@ -0,0 +1,445 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * BeanProperties holds the getter methods of a class and the JSONObject key
+ * that each one produces, and the public fields of the class. Finding them
+ * with reflection and deriving the keys from the method names is costly, so
+ * it is done once per class and the result is kept for as long as the class
+ * is. Each getter and field is read through an Accessor, which is also made
+ * once.
+ * <p>
+ * BeanProperties also serve as the serializer of a class. They hold the
+ * quoted text of each key and the kind of value each getter returns, so a
+ * bean can be written as JSON text without first being made into a
+ * JSONObject.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class BeanProperties {
+
+    /**
+     * The BeanProperties of each class that has been asked for.
+     */
+    private static final ClassValue cache = new ClassValue() {
+        protected Object computeValue(Class klass) {
+            return new BeanProperties(klass);
+        }
+    };
+
+    /**
+     * The kinds of getter, by the type they return.
+     */
+    private static final int OTHER = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int DOUBLE = 3;
+    private static final int FLOAT = 4;
+    private static final int BOOLEAN = 5;
+
+    /**
+     * The lookup used to make method handles.
+     */
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    /**
+     * The accessors of the public fields, by name.
+     */
+    private final Map fields;
+
+    /**
+     * The accessors of the getter methods, in the same order as the keys.
+     */
+    final Accessor[] getters;
+
+    /**
+     * True if two getters produce the same key. Such a bean is written by
+     * way of a JSONObject, which resolves the keys as JSONObject(Object)
+     * does.
+     */
+    private final boolean duplicates;
+
+    /**
+     * The kind of each getter.
+     */
+    private final int[] kinds;
+
+    /**
+     * The text that comes before the value of each getter: a comma, the
+     * quoted key, and a colon. The comma is skipped for the first member.
+     */
+    private final char[][] prefixes;
+
+    /**
+     * The keys.
+     */
+    final String[] keys;
+
+
+    /**
+     * Find the getters of a class. A getter is a public method without
+     * parameters whose name is "get" or "is" followed by an uppercase
+     * letter. The key is the rest of the name, with its first letter made
+     * lowercase unless the second letter is also uppercase.
+     * @param klass A class.
+     */
+    private BeanProperties(Class klass) {
+
+// If klass is a System class then set includeSuperClass to false. 
+
+        boolean includeSuperClass = klass.getClassLoader() != null;
+
+        Method[] methods = (includeSuperClass) ?
+                klass.getMethods() : klass.getDeclaredMethods();
+        Accessor[] getters = new Accessor[methods.length];
+        Class[]    types = new Class[methods.length];
+        String[] keys = new String[methods.length];
+        int      length = 0;
+        for (int i = 0; i < methods.length; i += 1) {
+            Method method = methods[i];
+            if (Modifier.isPublic(method.getModifiers())) {
+                String name = method.getName();
+                String key = "";
+                if (name.startsWith("get")) {
+                    if (name.equals("getClass") || 
+                            name.equals("getDeclaringClass")) {
+                        key = "";
+                    } else {
+                        key = name.substring(3);
+                    }
+                } else if (name.startsWith("is")) {
+                    key = name.substring(2);
+                }
+                if (key.length() > 0 &&
+                        Character.isUpperCase(key.charAt(0)) &&
+                        method.getParameterTypes().length == 0) {
+                    if (key.length() == 1) {
+                        key = key.toLowerCase();
+                    } else if (!Character.isUpperCase(key.charAt(1))) {
+                        key = key.substring(0, 1).toLowerCase() +
+                            key.substring(1);
+                    }
+                    getters[length] = new Accessor(method);
+                    types[length] = method.getReturnType();
+                    keys[length] = key;
+                    length += 1;
+                }
+            }
+        }
+        this.getters = new Accessor[length];
+        this.keys = new String[length];
+        System.arraycopy(getters, 0, this.getters, 0, length);
+        System.arraycopy(keys, 0, this.keys, 0, length);
+
+        boolean duplicates = false;
+        this.kinds = new int[length];
+        this.prefixes = new char[length][];
+        for (int i = 0; i < length; i += 1) {
+            Class type = types[i];
+            if (type == String.class) {
+                this.kinds[i] = STRING;
+            } else if (type == int.class || type == Integer.class ||
+                    type == long.class || type == Long.class ||
+                    type == short.class || type == Short.class ||
+                    type == byte.class || type == Byte.class) {
+                this.kinds[i] = INTEGER;
+            } else if (type == double.class || type == Double.class) {
+                this.kinds[i] = DOUBLE;
+            } else if (type == float.class || type == Float.class) {
+                this.kinds[i] = FLOAT;
+            } else if (type == boolean.class || type == Boolean.class) {
+                this.kinds[i] = BOOLEAN;
+            } else {
+                this.kinds[i] = OTHER;
+            }
+            this.prefixes[i] = (',' + JSONObject.quote(keys[i]) + ':')
+                .toCharArray();
+            for (int j = 0; j < i; j += 1) {
+                if (keys[j].equals(keys[i])) {
+                    duplicates = true;
+                }
+            }
+        }
+        this.duplicates = duplicates;
+
+// A name can be shared by fields of the class and of its supertypes, so each
+// name is resolved with getField to find the field it means.
+
+        this.fields = new HashMap();
+        Field[] fields = klass.getFields();
+        for (int i = 0; i < fields.length; i += 1) {
+            String name = fields[i].getName();
+            if (!this.fields.containsKey(name)) {
+                try {
+                    this.fields.put(name, new Accessor(klass.getField(name)));
+                } catch (NoSuchFieldException ignore) {
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Get the accessor of a public field.
+     * @param name The name of the field.
+     * @return The Accessor, or null if the class has no such public field.
+     */
+    Accessor field(String name) {
+        return (Accessor)this.fields.get(name);
+    }
+
+
+    /**
+     * Get the BeanProperties of a class, finding them the first time.
+     * @param klass A class.
+     * @return The BeanProperties.
+     */
+    static BeanProperties forClass(Class klass) {
+        return (BeanProperties)cache.get(klass);
+    }
+
+
+    /**
+     * Write a bean as JSON text. The text is the same as that of
+     * new JSONObject(bean).toString(). Getters that throw or return null
+     * are skipped.
+     * @param bean A bean of this class.
+     * @param writer A writer.
+     * @throws JSONException If a value is or contains an invalid number.
+     * @throws IOException
+     */
+    void write(Object bean, Writer writer) throws JSONException, IOException {
+        if (this.duplicates) {
+            new JSONObject(bean).write(writer);
+            return;
+        }
+        boolean commanate = false;
+        writer.write('{');
+        for (int i = 0; i < this.getters.length; i += 1) {
+            Object value;
+            try {
+                value = this.getters[i].get(bean);
+            } catch (Exception ignore) {
+                continue;
+            }
+            if (value == null) {
+                continue;
+            }
+            char[] prefix = this.prefixes[i];
+            if (commanate) {
+                writer.write(prefix);
+            } else {
+                writer.write(prefix, 1, prefix.length - 1);
+            }
+            switch (this.kinds[i]) {
+            case STRING:
+                JSONObject.quote((String)value, writer);
+                break;
+            case INTEGER:
+                if (writer instanceof JSONByteWriter) {
+                    ((JSONByteWriter)writer).writeLong(
+                            ((Number)value).longValue());
+                } else {
+                    writer.write(value.toString());
+                }
+                break;
+            case BOOLEAN:
+                writer.write(value.toString());
+                break;
+            case DOUBLE:
+                JSONObject.testValidity(value);
+                DoubleFormatter.write(((Double)value).doubleValue(), writer);
+                break;
+            case FLOAT:
+                JSONObject.testValidity(value);
+                DoubleFormatter.write(((Float)value).floatValue(), writer);
+                break;
+            default:
+                writeValue(value, writer);
+            }
+            commanate = true;
+        }
+        writer.write('}');
+    }
+
+
+    /**
+     * Write a value as JSON text, as JSONObject.wrap and JSONObject.write
+     * would. A bean is written by its own serializer.
+     * @param value A value that is not null.
+     * @param writer A writer.
+     * @throws JSONException If the value is or contains an invalid number.
+     * @throws IOException
+     */
+    static void writeValue(Object value, Writer writer)
+            throws JSONException, IOException {
+        if (JSONObject.isBean(value)) {
+            forClass(value.getClass()).write(value, writer);
+        } else {
+            JSONObject.writeValue(writer, JSONObject.wrap(value), false);
+        }
+    }
+
+
+    /**
+     * Determine if a class can be named from this package's class loader.
+     * A function made by LambdaMetafactory names the classes of the method
+     * it calls, so it can only be used for classes that are visible here.
+     */
+    static boolean isVisible(Class klass) {
+        if (klass.isPrimitive()) {
+            return true;
+        }
+        while (klass.isArray()) {
+            klass = klass.getComponentType();
+        }
+        try {
+            return Class.forName(klass.getName(), false,
+                    BeanProperties.class.getClassLoader()) == klass;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * An Accessor reads a property of an object. It calls a getter through
+     * a Function made by LambdaMetafactory, which the JIT compiler can
+     * inline like an ordinary call. If a Function cannot be made, it uses a
+     * method handle, and if that cannot be made either, reflection. A field
+     * is read through a method handle, or with reflection.
+     */
+    static final class Accessor {
+
+        /**
+         * The function that calls the getter, or null.
+         */
+        private final Function function;
+
+        /**
+         * The method handle, of type (Object)Object, or null.
+         */
+        private final MethodHandle handle;
+
+        /**
+         * The Method or Field.
+         */
+        private final AccessibleObject member;
+
+
+        /**
+         * Make an accessor for a getter method.
+         * @param method A public method without parameters.
+         */
+        Accessor(Method method) {
+            Function     function = null;
+            MethodHandle handle = null;
+            try {
+                handle = lookup.unreflect(method);
+                if (isVisible(method.getDeclaringClass()) &&
+                        isVisible(method.getReturnType()) &&
+                        method.getReturnType() != void.class) {
+                    CallSite site = LambdaMetafactory.metafactory(lookup,
+                            "apply", MethodType.methodType(Function.class),
+                            MethodType.methodType(Object.class, Object.class),
+                            handle, handle.type().wrap());
+                    function = (Function)site.getTarget().invokeExact();
+                }
+                handle = handle.asType(
+                        MethodType.methodType(Object.class, Object.class));
+            } catch (Throwable e) {
+                handle = null;
+            }
+            this.function = function;
+            this.handle = handle;
+            this.member = method;
+        }
+
+
+        /**
+         * Make an accessor for a public field.
+         * @param field A public field.
+         */
+        Accessor(Field field) {
+            MethodHandle handle;
+            try {
+                handle = lookup.unreflectGetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0,
+                            Object.class);
+                }
+                handle = handle.asType(
+                        MethodType.methodType(Object.class, Object.class));
+            } catch (Throwable e) {
+                handle = null;
+            }
+            this.function = null;
+            this.handle = handle;
+            this.member = field;
+        }
+
+
+        /**
+         * Read the property.
+         * @param object The object.
+         * @return The value, boxed if it is primitive.
+         * @throws Exception If the property could not be read. As with
+         *  Method.invoke, anything thrown by a getter is wrapped in an
+         *  InvocationTargetException.
+         */
+        Object get(Object object) throws Exception {
+            if (this.function != null || this.handle != null) {
+                try {
+                    return this.function != null ?
+                        this.function.apply(object) :
+                        (Object)this.handle.invokeExact(object);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            }
+            if (this.member instanceof Method) {
+                return ((Method)this.member).invoke(object, (Object[])null);
+            }
+            return ((Field)this.member).get(object);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,755 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A CompactMap is the Map that holds the members of a JSONObject. It keeps
+ * its keys and values in a pair of parallel arrays, in the order in which
+ * the keys were first put, so a JSONObject costs two arrays rather than a
+ * table and an entry object for every member. Small maps are searched by
+ * scanning the keys. Above a threshold an open addressing table of
+ * positions is added to find keys by hash.
+ * <p>
+ * The maps made by a parser start from a Shape. A Shape is an immutable
+ * sequence of keys with its hash table, shared by all of the maps that
+ * were given the same keys in the same order, so that each of those maps
+ * needs only its own array of values. While a map is being parsed,
+ * putting a new key moves it to the Shape that has the key added. The
+ * Shapes made by a parser are counted and locked by a Shapes object that
+ * only the parser refers to, and a map lets go of its Shape once it has
+ * been parsed, so a map that outlives the parser does not keep the other
+ * Shapes alive. Removing a key, putting one after the map has been parsed,
+ * or growing beyond what Shapes are kept for, gives the map its own copy of
+ * the keys.
+ * <p>
+ * Removing a member leaves a marker at its position, so that the other
+ * positions and the hash table stay as they are. The members are moved
+ * over the markers only once more than half of the positions are marked,
+ * or when the arrays are full, so removing many members takes linear time.
+ * <p>
+ * A map whose keys collide in its table, as keys chosen to have the same
+ * hash code do, moves its members into a LinkedHashMap, which handles
+ * collisions without taking quadratic time.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class CompactMap extends AbstractMap {
+
+    /**
+     * The largest map that is searched without a hash table.
+     */
+    private static final int THRESHOLD = 8;
+
+    /**
+     * The key at the position of a member that has been removed.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The most slots that may be probed to place a key in a hash table.
+     */
+    private static final int MAX_PROBES = 16;
+
+    /**
+     * The number of positions in use, including those of removed members.
+     */
+    private int end;
+
+    /**
+     * The keys, in the order that they were put, with REMOVED at the
+     * positions of removed members. If the map is shared, these are the
+     * keys of a Shape and must not be changed.
+     */
+    private Object[] keys;
+
+    /**
+     * The values, at the same positions as their keys.
+     */
+    private Object[] values;
+
+    /**
+     * The number of members.
+     */
+    private int size;
+
+    /**
+     * The hash table, or null if the map is small. Each slot holds the
+     * position of a key plus one, or zero if the slot is empty. The length
+     * is a power of two at least twice the number of positions in use.
+     */
+    private int[] table;
+
+    /**
+     * The LinkedHashMap that holds the members once keys have collided, or
+     * null. When it is set, the arrays are not used.
+     */
+    private LinkedHashMap large;
+
+    /**
+     * true if the keys and table are those of a Shape, and so must not be
+     * changed.
+     */
+    private boolean shared;
+
+    /**
+     * The Shape whose keys and table the map is using while it is being
+     * parsed, or null.
+     */
+    private Shape shape;
+
+    /**
+     * The Shapes from which the map takes its keys while it is being
+     * parsed, or null.
+     */
+    private Shapes shapes;
+
+
+    /**
+     * Construct an empty CompactMap.
+     */
+    CompactMap() {
+        this(4);
+    }
+
+
+    /**
+     * Construct an empty CompactMap with room for a number of members.
+     * @param capacity The expected number of members.
+     */
+    CompactMap(int capacity) {
+        this.keys = new Object[Math.max(capacity, 1)];
+        this.values = new Object[this.keys.length];
+    }
+
+
+    /**
+     * Construct an empty CompactMap that takes its keys from Shapes until
+     * detach is called.
+     * @param shapes The Shapes of a parser.
+     */
+    CompactMap(Shapes shapes) {
+        this.keys = shapes.root.keys;
+        this.values = new Object[4];
+        this.shared = true;
+        this.shape = shapes.root;
+        this.shapes = shapes;
+    }
+
+
+    /**
+     * Stop taking keys from Shapes. This is done when the map has been
+     * parsed. The map goes on sharing the keys of its Shape until they are
+     * changed, but no longer refers to the Shape.
+     */
+    void detach() {
+        this.shape = null;
+        this.shapes = null;
+    }
+
+
+    public void clear() {
+        if (this.large != null) {
+            this.large.clear();
+            return;
+        }
+        if (this.shared) {
+            this.keys = new Object[this.values.length];
+            this.shared = false;
+            detach();
+        }
+        for (int i = 0; i < this.end; i += 1) {
+            this.keys[i] = null;
+            this.values[i] = null;
+        }
+        this.end = 0;
+        this.size = 0;
+        this.table = null;
+    }
+
+
+    public boolean containsKey(Object key) {
+        if (this.large != null) {
+            return this.large.containsKey(key);
+        }
+        return indexOf(key) >= 0;
+    }
+
+
+    public Set entrySet() {
+        if (this.large != null) {
+            return this.large.entrySet();
+        }
+        return new AbstractSet() {
+            public Iterator iterator() {
+                return new Members(Members.ENTRIES);
+            }
+
+            public int size() {
+                return CompactMap.this.size;
+            }
+        };
+    }
+
+
+    public Object get(Object key) {
+        if (this.large != null) {
+            return this.large.get(key);
+        }
+        int i = indexOf(key);
+        return i >= 0 ? this.values[i] : null;
+    }
+
+
+    public Set keySet() {
+        if (this.large != null) {
+            return this.large.keySet();
+        }
+        return new AbstractSet() {
+            public boolean contains(Object key) {
+                return indexOf(key) >= 0;
+            }
+
+            public Iterator iterator() {
+                return new Members(Members.KEYS);
+            }
+
+            public int size() {
+                return CompactMap.this.size;
+            }
+        };
+    }
+
+
+    public Object put(Object key, Object value) {
+        if (this.large != null) {
+            return this.large.put(key, value);
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            Object previous = this.values[i];
+            this.values[i] = value;
+            return previous;
+        }
+        if (this.shape != null) {
+            Shape next = this.shape.add(key, this.shapes);
+            if (next != null) {
+                if (this.end == this.values.length) {
+                    Object[] newValues = new Object[this.end * 2];
+                    System.arraycopy(this.values, 0, newValues, 0, this.end);
+                    this.values = newValues;
+                }
+                this.values[this.end] = value;
+                this.end += 1;
+                this.size += 1;
+                this.keys = next.keys;
+                this.table = next.table;
+                this.shape = next;
+                return null;
+            }
+        }
+        unshare();
+        if (this.end == this.keys.length) {
+            if ((this.end - this.size) * 4 >= this.end) {
+                compact();
+            } else {
+                int length = this.end * 2;
+                Object[] newKeys = new Object[length];
+                Object[] newValues = new Object[length];
+                System.arraycopy(this.keys, 0, newKeys, 0, this.end);
+                System.arraycopy(this.values, 0, newValues, 0, this.end);
+                this.keys = newKeys;
+                this.values = newValues;
+            }
+        }
+        this.keys[this.end] = key;
+        this.values[this.end] = value;
+        this.end += 1;
+        this.size += 1;
+        if (this.table != null && this.end * 2 <= this.table.length) {
+            if (!insert(this.table, this.end - 1)) {
+                spill();
+            }
+        } else if (this.end > THRESHOLD) {
+            compact();
+            if (this.table == null && this.end > THRESHOLD) {
+                spill();
+            }
+        }
+        return null;
+    }
+
+
+    public Object remove(Object key) {
+        if (this.large != null) {
+            return this.large.remove(key);
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object previous = this.values[i];
+        removeAt(i);
+        return previous;
+    }
+
+
+    public int size() {
+        return this.large != null ? this.large.size() : this.size;
+    }
+
+
+    public Collection values() {
+        if (this.large != null) {
+            return this.large.values();
+        }
+        return new AbstractCollection() {
+            public Iterator iterator() {
+                return new Members(Members.VALUES);
+            }
+
+            public int size() {
+                return CompactMap.this.size;
+            }
+        };
+    }
+
+
+    /**
+     * Find the position of a key. A map that has grown past the threshold
+     * without a table, because its keys collided when it was compacted,
+     * is scanned.
+     * @param key A key.
+     * @return The position, or -1 if the key is not in the map.
+     */
+    private int indexOf(Object key) {
+        int[] table = this.table;
+        if (table == null) {
+            for (int i = 0; i < this.end; i += 1) {
+                Object k = this.keys[i];
+                if (k == key || (key != null && key.equals(k))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        for (;;) {
+            int position = table[slot];
+            if (position == 0) {
+                return -1;
+            }
+            Object k = this.keys[position - 1];
+            if (k == key || (key != null && key.equals(k))) {
+                return position - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+
+    /**
+     * Put a position into a hash table.
+     * @return false if more than MAX_PROBES slots were probed.
+     */
+    private boolean insert(int[] table, int i) {
+        int mask = table.length - 1;
+        int slot = hash(this.keys[i]) & mask;
+        int probes = 1;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+            probes += 1;
+        }
+        table[slot] = i + 1;
+        return probes <= MAX_PROBES;
+    }
+
+
+    /**
+     * Move the members into a LinkedHashMap, because their keys collide.
+     */
+    private void spill() {
+        LinkedHashMap large = new LinkedHashMap(this.size * 2);
+        for (int i = 0; i < this.end; i += 1) {
+            if (this.keys[i] != REMOVED) {
+                large.put(this.keys[i], this.values[i]);
+            }
+        }
+        this.large = large;
+        this.keys = null;
+        this.values = null;
+        this.table = null;
+        this.shared = false;
+        detach();
+        this.end = 0;
+        this.size = 0;
+    }
+
+
+    /**
+     * Give the map its own copy of the keys and table of its Shape, so that
+     * they can be changed.
+     */
+    private void unshare() {
+        if (this.shared) {
+            Object[] keys = new Object[this.values.length];
+            System.arraycopy(this.keys, 0, keys, 0, this.end);
+            this.keys = keys;
+            if (this.table != null) {
+                this.table = this.table.clone();
+            }
+            this.shared = false;
+            detach();
+        }
+    }
+
+
+    /**
+     * Move the members over the positions of removed members, keeping them
+     * in order, and build a new hash table for them, or drop the table if
+     * the map has become small or its keys collide.
+     */
+    private void compact() {
+        Object[] keys = this.keys;
+        Object[] values = this.values;
+        int end = 0;
+        for (int i = 0; i < this.end; i += 1) {
+            if (keys[i] != REMOVED) {
+                keys[end] = keys[i];
+                values[end] = values[i];
+                end += 1;
+            }
+        }
+        for (int i = end; i < this.end; i += 1) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        this.end = end;
+        this.table = end <= THRESHOLD ? null : buildTable(keys, end);
+    }
+
+
+    /**
+     * Build a hash table for a sequence of keys.
+     * @param keys An array of keys.
+     * @param size The number of keys.
+     * @return A table whose length is a power of two at least twice the
+     *  size, or null if a key needs more than MAX_PROBES probes.
+     */
+    private static int[] buildTable(Object[] keys, int size) {
+        int length = 16;
+        while (length < size * 2) {
+            length *= 2;
+        }
+        int[] table = new int[length];
+        int mask = length - 1;
+        for (int i = 0; i < size; i += 1) {
+            int slot = hash(keys[i]) & mask;
+            int probes = 1;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+                probes += 1;
+            }
+            if (probes > MAX_PROBES) {
+                return null;
+            }
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+
+    /**
+     * Remove the member at a position, keeping the others in order. The
+     * map is compacted if more than half of its positions are removed.
+     */
+    private void removeAt(int i) {
+        unshare();
+        this.keys[i] = REMOVED;
+        this.values[i] = null;
+        this.size -= 1;
+        if (this.end - this.size > this.size) {
+            compact();
+        }
+    }
+
+
+    private static int hash(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * A Shape is an immutable sequence of keys and its hash table. A Shape
+     * remembers the Shapes made from it by adding a key, so that maps that
+     * are given the same keys in the same order arrive at the same Shape.
+     * A parser keeps the empty Shape at the root of the Shapes it makes.
+     * The number of Shapes made from one root is limited, so that a source
+     * with many differently keyed objects does not grow the tree without
+     * bound.
+     */
+    static final class Shape {
+
+        /**
+         * The most keys in a Shape. Larger maps have their own keys.
+         */
+        private static final int MAX_SIZE = 64;
+
+        /**
+         * The most Shapes that are remembered as made from one Shape.
+         */
+        private static final int MAX_TRANSITIONS = 8;
+
+        /**
+         * The keys, which must not be changed.
+         */
+        final Object[] keys;
+
+        /**
+         * The hash table of the keys, or null if there are few keys.
+         */
+        final int[] table;
+
+        /**
+         * The keys that have been added to this Shape.
+         */
+        private Object[] added;
+
+        /**
+         * The Shapes made by adding the keys in added.
+         */
+        private Shape[] transitions;
+
+        private Shape(Object[] keys, int[] table) {
+            this.keys = keys;
+            this.table = table;
+        }
+
+        /**
+         * Get the Shape made by adding a key to this Shape.
+         * @param key A key that is not in this Shape.
+         * @param shapes The Shapes that this Shape was made from.
+         * @return A Shape, or null if that Shape would not be shared.
+         */
+        Shape add(Object key, Shapes shapes) {
+            synchronized (shapes) {
+                int count = this.added == null ? 0 : this.added.length;
+                for (int i = 0; i < count; i += 1) {
+                    if (this.added[i] == key || this.added[i].equals(key)) {
+                        return this.transitions[i];
+                    }
+                }
+                int size = this.keys.length;
+                if (key == null || size >= MAX_SIZE ||
+                        count >= MAX_TRANSITIONS ||
+                        shapes.count >= Shapes.MAX_SHAPES) {
+                    return null;
+                }
+                Object[] keys = new Object[size + 1];
+                System.arraycopy(this.keys, 0, keys, 0, size);
+                keys[size] = key;
+                int[] table = null;
+                if (size + 1 > THRESHOLD) {
+                    table = buildTable(keys, size + 1);
+                    if (table == null) {
+                        return null;
+                    }
+                }
+                Shape shape = new Shape(keys, table);
+
+                Object[] added = new Object[count + 1];
+                Shape[] transitions = new Shape[count + 1];
+                if (count > 0) {
+                    System.arraycopy(this.added, 0, added, 0, count);
+                    System.arraycopy(this.transitions, 0, transitions, 0,
+                            count);
+                }
+                added[count] = key;
+                transitions[count] = shape;
+                this.added = added;
+                this.transitions = transitions;
+                shapes.count += 1;
+                return shape;
+            }
+        }
+    }
+
+
+    /**
+     * The Shapes made by a parser, grown from an empty root Shape. Only the
+     * parser refers to it, so the Shapes that no map is using can be
+     * collected once the parser is. The Shapes are added to while holding
+     * its lock.
+     */
+    static final class Shapes {
+
+        /**
+         * The most Shapes that are made from one root.
+         */
+        private static final int MAX_SHAPES = 1024;
+
+        /**
+         * The empty Shape.
+         */
+        final Shape root = new Shape(new Object[0], null);
+
+        /**
+         * The number of Shapes made from the root.
+         */
+        private int count;
+    }
+
+
+    /**
+     * An iterator over the keys, values, or members of the map, in order.
+     */
+    private final class Members implements Iterator {
+        static final int KEYS = 0;
+        static final int VALUES = 1;
+        static final int ENTRIES = 2;
+
+        private int next;
+        private final int kind;
+        private int last = -1;
+
+        /**
+         * The number of members before next, which is where next moves to
+         * if the map is compacted.
+         */
+        private int passed;
+
+        Members(int kind) {
+            this.kind = kind;
+        }
+
+        /**
+         * Move next past the positions of removed members.
+         * @return next.
+         */
+        private int skip() {
+            while (this.next < CompactMap.this.end &&
+                    CompactMap.this.keys[this.next] == REMOVED) {
+                this.next += 1;
+            }
+            return this.next;
+        }
+
+        public boolean hasNext() {
+            return skip() < CompactMap.this.end;
+        }
+
+        public Object next() {
+            if (skip() >= CompactMap.this.end) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.next;
+            this.next += 1;
+            this.passed += 1;
+            switch (this.kind) {
+            case KEYS:
+                return CompactMap.this.keys[this.last];
+            case VALUES:
+                return CompactMap.this.values[this.last];
+            default:
+                return new Member(this.last);
+            }
+        }
+
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(this.last);
+            this.passed -= 1;
+            if (CompactMap.this.end == CompactMap.this.size) {
+                this.next = this.passed;
+            }
+            this.last = -1;
+        }
+    }
+
+
+    /**
+     * A member of the map, as seen through entrySet.
+     */
+    private final class Member implements Map.Entry {
+        private final int position;
+
+        Member(int position) {
+            this.position = position;
+        }
+
+        public boolean equals(Object object) {
+            if (!(object instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry e = (Map.Entry)object;
+            Object key = getKey();
+            Object value = getValue();
+            return (key == null ? e.getKey() == null : key.equals(e.getKey()))
+                    && (value == null ? e.getValue() == null :
+                        value.equals(e.getValue()));
+        }
+
+        public Object getKey() {
+            return CompactMap.this.keys[this.position];
+        }
+
+        public Object getValue() {
+            return CompactMap.this.values[this.position];
+        }
+
+        public int hashCode() {
+            Object key = getKey();
+            Object value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^
+                    (value == null ? 0 : value.hashCode());
+        }
+
+        public Object setValue(Object value) {
+            Object previous = getValue();
+            CompactMap.this.values[this.position] = value;
+            return previous;
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
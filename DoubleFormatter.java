@@ -0,0 +1,464 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+
+/**
+ * DoubleFormatter produces the text of doubles and floats for JSON. It finds
+ * the shortest decimal that reads back as the same number, using the
+ * Schubfach algorithm of Raffaello Giulietti, and writes its digits directly
+ * into a character buffer. The text is the same as that of Double.toString
+ * and Float.toString, except that a plain number has its trailing zeros
+ * and decimal point removed: <code>100.0</code> becomes <code>100</code>,
+ * while <code>1.0E10</code> is unchanged.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class DoubleFormatter {
+
+    /**
+     * The largest number of characters produced for a double or a float.
+     */
+    static final int MAX_LENGTH = 24;
+
+    private static final int  C_TINY = 3;
+    private static final long C_MIN = 1L << 52;
+    private static final int  K_MIN = -324;
+    private static final int  K_MAX = 292;
+    private static final int  P = 53;
+    private static final int  Q_MIN = -1074;
+
+    private static final int  FLOAT_C_TINY = 8;
+    private static final int  FLOAT_C_MIN = 1 << 23;
+    private static final int  FLOAT_P = 24;
+    private static final int  FLOAT_Q_MIN = -149;
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final long MASK_63 = 0x7FFFFFFFFFFFFFFFL;
+
+    /**
+     * For each k from K_MIN to K_MAX, a pair of longs holding the upper and
+     * lower 63 bits of g = floor(10^-k 2^-r) + 1, where r is chosen so that
+     * g has 126 bits.
+     */
+    private static final long[] g = new long[2 * (K_MAX - K_MIN + 1)];
+
+    static {
+        BigInteger ten = BigInteger.valueOf(10);
+        for (int k = K_MIN; k <= K_MAX; k += 1) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger beta;
+            if (k <= 0) {
+                beta = ten.pow(-k);
+                beta = r >= 0 ? beta.shiftRight(r) : beta.shiftLeft(-r);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(-r).divide(ten.pow(k));
+            }
+            beta = beta.add(BigInteger.ONE);
+            g[2 * (k - K_MIN)] = beta.shiftRight(63).longValue();
+            g[2 * (k - K_MIN) + 1] = beta.longValue() & MASK_63;
+        }
+    }
+
+
+    private DoubleFormatter() {
+    }
+
+
+    /**
+     * Produce the JSON text of a finite double.
+     * @param v A finite double.
+     * @return A String.
+     */
+    static String toString(double v) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, format(v, chars, 0));
+    }
+
+
+    /**
+     * Produce the JSON text of a finite float.
+     * @param v A finite float.
+     * @return A String.
+     */
+    static String toString(float v) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, format(v, chars, 0));
+    }
+
+
+    /**
+     * Write the JSON text of a finite double.
+     * @param v A finite double.
+     * @param writer A writer.
+     * @throws IOException
+     */
+    static void write(double v, Writer writer) throws IOException {
+        if (writer instanceof JSONByteWriter) {
+            ((JSONByteWriter)writer).writeDouble(v);
+            return;
+        }
+        char[] chars = new char[MAX_LENGTH];
+        writer.write(chars, 0, format(v, chars, 0));
+    }
+
+
+    /**
+     * Write the JSON text of a finite float.
+     * @param v A finite float.
+     * @param writer A writer.
+     * @throws IOException
+     */
+    static void write(float v, Writer writer) throws IOException {
+        if (writer instanceof JSONByteWriter) {
+            ((JSONByteWriter)writer).writeFloat(v);
+            return;
+        }
+        char[] chars = new char[MAX_LENGTH];
+        writer.write(chars, 0, format(v, chars, 0));
+    }
+
+
+    /**
+     * Put the JSON text of a finite double into a buffer.
+     * @param v A finite double.
+     * @param chars A buffer with at least MAX_LENGTH characters available.
+     * @param at The index at which to put the text.
+     * @return The index after the text.
+     */
+    static int format(double v, char[] chars, int at) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & (C_MIN - 1);
+        int bq = (int)(bits >>> (P - 1)) & 0x7FF;
+        if (bits < 0) {
+            chars[at] = '-';
+            at += 1;
+        }
+        if (bq != 0) {
+
+// A normal value. An integer below 2^53 needs no search.
+
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, chars, at);
+                }
+            }
+            return toDecimal(-mq, c, 0, chars, at);
+        }
+        if (t != 0) {
+            return t < C_TINY ?
+                    toDecimal(Q_MIN, 10 * t, -1, chars, at) :
+                    toDecimal(Q_MIN, t, 0, chars, at);
+        }
+        chars[at] = '0';
+        return at + 1;
+    }
+
+
+    /**
+     * Put the JSON text of a finite float into a buffer.
+     * @param v A finite float.
+     * @param chars A buffer with at least MAX_LENGTH characters available.
+     * @param at The index at which to put the text.
+     * @return The index after the text.
+     */
+    static int format(float v, char[] chars, int at) {
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & (FLOAT_C_MIN - 1);
+        int bq = (bits >>> (FLOAT_P - 1)) & 0xFF;
+        if (bits < 0) {
+            chars[at] = '-';
+            at += 1;
+        }
+        if (bq != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - bq;
+            int c = FLOAT_C_MIN | t;
+            if (0 < mq && mq < FLOAT_P) {
+                int f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, chars, at);
+                }
+            }
+            return toDecimal(-mq, c, 0, chars, at);
+        }
+        if (t != 0) {
+            return t < FLOAT_C_TINY ?
+                    toDecimal(FLOAT_Q_MIN, 10 * t, -1, chars, at) :
+                    toDecimal(FLOAT_Q_MIN, t, 0, chars, at);
+        }
+        chars[at] = '0';
+        return at + 1;
+    }
+
+
+    /**
+     * Find the shortest decimal in the rounding interval of c 2^q that is
+     * closest to it, and put its text into a buffer.
+     */
+    private static int toDecimal(int q, long c, int dk, char[] chars,
+            int at) {
+        int out = (int)c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = g[2 * (k - K_MIN)];
+        long g0 = g[2 * (k - K_MIN) + 1];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+// Try the multiples of ten next to the value, which are one digit shorter.
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = s / 10 * 10;
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k + dk, chars, at);
+            }
+        }
+
+// Otherwise take whichever of s and s + 1 is in the interval, or the
+// closer of them if both are.
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, chars, at);
+        }
+        long cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t,
+                k + dk, chars, at);
+    }
+
+
+    /**
+     * The float version of toDecimal, which needs only the upper half of g.
+     */
+    private static int toDecimal(int q, int c, int dk, char[] chars,
+            int at) {
+        int out = c & 1;
+        long cb = (long)c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g1 = g[2 * (k - K_MIN)] + 1;
+        int vb = rop(g1, cb << h);
+        int vbl = rop(g1, cbl << h);
+        int vbr = rop(g1, cbr << h);
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = s / 10 * 10;
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k + dk, chars, at);
+            }
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, chars, at);
+        }
+        int cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t,
+                k + dk, chars, at);
+    }
+
+
+    /**
+     * Compute g cp 2^-127, rounded to odd, where g = g1 2^63 + g0.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+
+    /**
+     * Compute g cp 2^-95, rounded to odd.
+     */
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int)(vbp | ((x1 & MASK_32) + MASK_32) >>> 32);
+    }
+
+
+    /**
+     * The upper 64 bits of the product of two nonnegative longs.
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >>> 32;
+        long x0 = x & MASK_32;
+        long y1 = y >>> 32;
+        long y0 = y & MASK_32;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long middle = ((x0 * y0) >>> 32) + (p01 & MASK_32) + (p10 & MASK_32);
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+
+    /**
+     * floor(q log10(2))
+     */
+    private static int flog10pow2(int q) {
+        return (int)(q * 661971961083L >> 41);
+    }
+
+
+    /**
+     * floor(log10(3/4 2^q))
+     */
+    private static int flog10threeQuartersPow2(int q) {
+        return (int)(q * 661971961083L - 274743187321L >> 41);
+    }
+
+
+    /**
+     * floor(e log2(10))
+     */
+    private static int flog2pow10(int e) {
+        return (int)(e * 913124641741L >> 38);
+    }
+
+
+    /**
+     * Put the text of f 10^e into a buffer. Plain notation is used from
+     * 10^-3 up to but not including 10^7, and computerized scientific
+     * notation otherwise, as Double.toString does.
+     */
+    private static int toChars(long f, int e, char[] chars, int at) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e += 1;
+        }
+        int length = 1;
+        for (long p = f / 10; p != 0; p /= 10) {
+            length += 1;
+        }
+
+// The value is 0.ddd 10^point.
+
+        int point = length + e;
+        if (0 < point && point <= 7) {
+            if (length <= point) {
+                at = putDigits(f, length, chars, at);
+                while (length < point) {
+                    chars[at] = '0';
+                    at += 1;
+                    length += 1;
+                }
+                return at;
+            }
+            int end = putDigits(f, length, chars, at + 1);
+            System.arraycopy(chars, at + 1, chars, at, point);
+            chars[at + point] = '.';
+            return end;
+        }
+        if (-3 < point && point <= 0) {
+            chars[at] = '0';
+            chars[at + 1] = '.';
+            at += 2;
+            for (; point < 0; point += 1) {
+                chars[at] = '0';
+                at += 1;
+            }
+            return putDigits(f, length, chars, at);
+        }
+        int end = putDigits(f, length, chars, at + 1);
+        chars[at] = chars[at + 1];
+        chars[at + 1] = '.';
+        if (length == 1) {
+            chars[end] = '0';
+            end += 1;
+        }
+        chars[end] = 'E';
+        end += 1;
+        int exponent = point - 1;
+        if (exponent < 0) {
+            chars[end] = '-';
+            end += 1;
+            exponent = -exponent;
+        }
+        if (exponent >= 100) {
+            chars[end] = (char)('0' + exponent / 100);
+            end += 1;
+        }
+        if (exponent >= 10) {
+            chars[end] = (char)('0' + exponent / 10 % 10);
+            end += 1;
+        }
+        chars[end] = (char)('0' + exponent % 10);
+        return end + 1;
+    }
+
+
+    /**
+     * Put the decimal digits of a positive number into a buffer.
+     * @return The index after the digits.
+     */
+    private static int putDigits(long f, int length, char[] chars, int at) {
+        int end = at + length;
+        for (int i = end - 1; i >= at; i -= 1) {
+            chars[i] = (char)('0' + (int)(f % 10));
+            f /= 10;
+        }
+        return end;
+    }
+}
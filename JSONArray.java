@@ -25,11 +25,14 @@ SOFTWARE.
 */
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -78,15 +81,35 @@ import java.util.Map;
  * </ul>
 
  * @author JSON.org
- * @version 2010-12-28
+ * @version 2026-10-17
  */
 public class JSONArray {
 
 
     /**
-     * The arrayList where the JSONArray's properties are kept.
+     * The list where the JSONArray's properties are kept. This is an
+     * ArrayList, or a NumberList if the array was parsed from a text, so that
+     * elements that are all numbers are kept unboxed.
      */
-    private ArrayList myArrayList;
+    private final List myArrayList;
+
+
+    /**
+     * True if the JSONArray is a frozen snapshot that cannot be changed.
+     */
+    private final boolean frozen;
+
+
+    /**
+     * The hash code of a frozen JSONArray, or 0 if it has not been computed.
+     */
+    private int hash;
+
+
+    /**
+     * The JSON text of a frozen JSONArray, or null if it has not been made.
+     */
+    private String text;
 
 
     /**
@@ -94,6 +117,20 @@ public class JSONArray {
      */
     public JSONArray() {
         this.myArrayList = new ArrayList();
+        this.frozen = false;
+    }
+
+
+    /**
+     * Construct a frozen JSONArray.
+     * @param list The elements: a PersistentList, or a NumberList of numbers
+     *  that must not be changed.
+     * @param hash The hash code of the list.
+     */
+    private JSONArray(List list, int hash) {
+        this.myArrayList = list;
+        this.frozen = true;
+        this.hash = hash;
     }
 
     /**
@@ -102,7 +139,8 @@ public class JSONArray {
      * @throws JSONException If there is a syntax error.
      */
     public JSONArray(JSONTokener x) throws JSONException {
-        this();
+        this.myArrayList = new NumberList();
+        this.frozen = false;
         if (x.nextClean() != '[') {
             throw x.syntaxError("A JSONArray text must start with '['");
         }
@@ -111,10 +149,10 @@ public class JSONArray {
 	        for (;;) {
 	            if (x.nextClean() == ',') {
 	                x.back();
-	                this.myArrayList.add(JSONObject.NULL);
+	                this.put(JSONObject.NULL);
 	            } else {
 	                x.back();
-	                this.myArrayList.add(x.nextValue());
+	                this.put(x.nextValue());
 	            }
 	            switch (x.nextClean()) {
 	            case ';':
@@ -152,6 +190,7 @@ public class JSONArray {
      */
     public JSONArray(Collection collection) {
 		this.myArrayList = new ArrayList();
+		this.frozen = false;
 		if (collection != null) {
 			Iterator iter = collection.iterator();
 			while (iter.hasNext()) {
@@ -179,6 +218,75 @@ public class JSONArray {
     }
     
     
+    /**
+     * Determine if this JSONArray is equal to another object. Frozen
+     * JSONArrays are equal if they have equal elements in the same order.
+     * A JSONArray that can be changed is only equal to itself.
+     * @param object The object to compare with.
+     * @return true if the object is this JSONArray, or if both are frozen
+     *  and have equal elements.
+     */
+    public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
+        if (!this.frozen || !(object instanceof JSONArray)) {
+            return false;
+        }
+        JSONArray ja = (JSONArray)object;
+        return ja.frozen && hashCode() == ja.hashCode() &&
+                this.myArrayList.equals(ja.myArrayList);
+    }
+
+
+    /**
+     * Make a deeply immutable snapshot of this JSONArray. The JSONObjects,
+     * JSONArrays, Maps, Collections, and arrays within it are frozen too.
+     * An array of numbers that was parsed from a text stays unboxed. See
+     * JSONObject.freeze.
+     * @return A frozen JSONArray, or this JSONArray if it is already frozen.
+     * @throws JSONException If a lazily parsed value cannot be parsed.
+     */
+    public JSONArray freeze() throws JSONException {
+        if (this.frozen) {
+            return this;
+        }
+        List       list;
+        NumberList numbers = numbers();
+        if (numbers != null) {
+            list = numbers.copy();
+        } else {
+            Object[] elements = new Object[length()];
+            for (int i = 0; i < elements.length; i += 1) {
+                elements[i] = JSONObject.freezeValue(this.myArrayList.get(i));
+            }
+            list = PersistentList.of(elements);
+        }
+        return new JSONArray(list, list.hashCode());
+    }
+
+
+    /**
+     * Get the JSON text of a frozen JSONArray, making it the first time.
+     * @return The text.
+     * @throws JSONException If the array contains an invalid number.
+     */
+    private String frozenText() throws JSONException {
+        String text = this.text;
+        if (text == null) {
+            StringWriter sw = new StringWriter();
+            try {
+                writeElements(sw, false);
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+            text = sw.toString();
+            this.text = text;
+        }
+        return text;
+    }
+
+
     /**
      * Get the object value associated with an index.
      * @param index
@@ -228,6 +336,10 @@ public class JSONArray {
      *  be converted to a number.
      */
     public double getDouble(int index) throws JSONException {
+        NumberList numbers = numbers();
+        if (numbers != null && index >= 0 && index < length()) {
+            return numbers.getDouble(index);
+        }
         Object object = get(index);
         try {
             return object instanceof Number ?
@@ -303,6 +415,10 @@ public class JSONArray {
      *  be converted to a number.
      */
     public long getLong(int index) throws JSONException {
+        NumberList numbers = numbers();
+        if (numbers != null && index >= 0 && index < length()) {
+            return numbers.getLong(index);
+        }
         Object object = get(index);
         try {
             return object instanceof Number ?
@@ -327,6 +443,32 @@ public class JSONArray {
     }
 
 
+    /**
+     * Get the hash code. The hash code of a frozen JSONArray is computed
+     * from its elements when it is frozen.
+     * @return The hash code.
+     */
+    public int hashCode() {
+        if (!this.frozen) {
+            return super.hashCode();
+        }
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = this.myArrayList.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+
+    /**
+     * Get the hash code of an element, which may be null.
+     */
+    private static int hashCode(Object value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
+
     /**
      * Determine if the value is null.
      * @param index The index must be between 0 and length() - 1.
@@ -369,6 +511,64 @@ public class JSONArray {
     }
 
 
+    /**
+     * Get the list of elements if they are all integers and doubles and
+     * are kept unboxed.
+     * @return A NumberList, or null.
+     */
+    private NumberList numbers() {
+        if (this.myArrayList instanceof NumberList) {
+            NumberList numbers = (NumberList)this.myArrayList;
+            if (numbers.isNumbers()) {
+                return numbers;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Produce an array of doubles from the values of this JSONArray. An
+     * array of numbers that was parsed from a text is copied without
+     * boxing its elements.
+     * @return An array of doubles.
+     * @throws JSONException If an element is not a number.
+     */
+    public double[] toDoubleArray() throws JSONException {
+        NumberList numbers = numbers();
+        if (numbers != null) {
+            return numbers.toDoubleArray();
+        }
+        int len = length();
+        double[] doubles = new double[len];
+        for (int i = 0; i < len; i += 1) {
+            doubles[i] = getDouble(i);
+        }
+        return doubles;
+    }
+
+
+    /**
+     * Produce an array of longs from the values of this JSONArray. An
+     * array of numbers that was parsed from a text is copied without
+     * boxing its elements.
+     * @return An array of longs.
+     * @throws JSONException If an element is not a number.
+     */
+    public long[] toLongArray() throws JSONException {
+        NumberList numbers = numbers();
+        if (numbers != null) {
+            return numbers.toLongArray();
+        }
+        int len = length();
+        long[] longs = new long[len];
+        for (int i = 0; i < len; i += 1) {
+            longs[i] = getLong(i);
+        }
+        return longs;
+    }
+
+
     /**
      * Get the optional object value associated with an index.
      * @param index The index must be between 0 and length() - 1.
@@ -639,6 +839,9 @@ public class JSONArray {
      * @return this.
      */
     public JSONArray put(Object value) {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("JSONArray is frozen.");
+        }
         this.myArrayList.add(value);
         return this;
     }
@@ -752,6 +955,9 @@ public class JSONArray {
         if (index < 0) {
             throw new JSONException("JSONArray[" + index + "] not found.");
         }
+        if (this.frozen) {
+            throw new UnsupportedOperationException("JSONArray is frozen.");
+        }
         if (index < length()) {
             this.myArrayList.set(index, value);
         } else {
@@ -771,6 +977,9 @@ public class JSONArray {
      * or null if there was no value.
      */
     public Object remove(int index) {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("JSONArray is frozen.");
+        }
     	Object o = opt(index);
         this.myArrayList.remove(index);
         return o;
@@ -811,7 +1020,10 @@ public class JSONArray {
      */
     public String toString() {
         try {
-            return '[' + join(",") + ']';
+            if (this.frozen) {
+                return frozenText();
+            }
+            return this.write(new StringWriter()).toString();
         } catch (Exception e) {
             return null;
         }
@@ -845,35 +1057,164 @@ public class JSONArray {
      * @throws JSONException
      */
     String toString(int indentFactor, int indent) throws JSONException {
-        int len = length();
-        if (len == 0) {
-            return "[]";
-        }
-        int i;
-        StringBuffer sb = new StringBuffer("[");
-        if (len == 1) {
-            sb.append(JSONObject.valueToString(this.myArrayList.get(0),
-                    indentFactor, indent));
-        } else {
-            int newindent = indent + indentFactor;
-            sb.append('\n');
-            for (i = 0; i < len; i += 1) {
-                if (i > 0) {
-                    sb.append(",\n");
-                }
-                for (int j = 0; j < newindent; j += 1) {
-                    sb.append(' ');
+        return this.write(new StringWriter(), indentFactor, indent).toString();
+    }
+
+
+    /**
+     * Make a frozen version of this JSONArray with a value appended. See
+     * with(int, Object).
+     * @param value An object value.
+     * @return A frozen JSONArray.
+     * @throws JSONException If the value is an invalid number.
+     */
+    public JSONArray with(Object value) throws JSONException {
+        return with(length(), value);
+    }
+
+
+    /**
+     * Make a frozen version of this JSONArray with a value put at an index.
+     * If the index is greater than the length, null elements are added as
+     * necessary to pad it out. The new version shares all of the elements
+     * that it does not change with the frozen version of this one, so it
+     * takes time and memory proportional to the logarithm of the length.
+     * This JSONArray is frozen first if it is not already frozen. A frozen
+     * array of unboxed numbers is copied into boxes the first time.
+     * @param index The subscript.
+     * @param value The value to put into the array. JSONObjects, JSONArrays,
+     *  Maps, Collections, and arrays are frozen.
+     * @return A frozen JSONArray.
+     * @throws JSONException If the index is negative or if the the value is
+     *  an invalid number.
+     */
+    public JSONArray with(int index, Object value) throws JSONException {
+        JSONObject.testValidity(value);
+        if (index < 0) {
+            throw new JSONException("JSONArray[" + index + "] not found.");
+        }
+        JSONArray      ja = freeze();
+        PersistentList list = ja.myArrayList instanceof PersistentList ?
+            (PersistentList)ja.myArrayList :
+            PersistentList.of(ja.myArrayList.toArray());
+        int hash = ja.hashCode();
+        value = JSONObject.freezeValue(value);
+
+// The hash code of a list is the sum of the hash codes of its elements times
+// powers of 31, so a replaced element adjusts it by the difference times the
+// power for its position, and an appended element multiplies it by 31.
+
+        if (index < list.size()) {
+            Object previous = list.get(index);
+            int    power = 1;
+            int    base = 31;
+            for (int n = list.size() - 1 - index; n > 0; n >>>= 1) {
+                if ((n & 1) != 0) {
+                    power *= base;
                 }
-                sb.append(JSONObject.valueToString(this.myArrayList.get(i),
-                        indentFactor, newindent));
+                base *= base;
             }
-            sb.append('\n');
-            for (i = 0; i < indent; i += 1) {
-                sb.append(' ');
+            hash += (hashCode(value) - hashCode(previous)) * power;
+        } else {
+            while (list.size() < index) {
+                list = list.with(list.size(), JSONObject.NULL);
+                hash = 31 * hash + JSONObject.NULL.hashCode();
             }
+            hash = 31 * hash + hashCode(value);
+        }
+        return new JSONArray(list.with(index, value), hash);
+    }
+
+
+    /**
+     * Write the contents of the JSONArray as prettyprinted JSON text to a
+     * writer, with the keys of objects sorted. The text is the same as that
+     * made by toString(indentFactor), but it is not collected in a String
+     * first.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     * @param writer A writer.
+     * @param indentFactor The number of spaces to add to each level of
+     *  indentation.
+     * @param indent The indentation of the top level.
+     * @return The writer.
+     * @throws JSONException If the array contains an invalid number.
+     */
+    public Writer write(Writer writer, int indentFactor, int indent)
+            throws JSONException {
+        return this.write(writer, indentFactor, indent, true);
+    }
+
+
+    /**
+     * Write the contents of the JSONArray as prettyprinted JSON text to a
+     * writer.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     * @param writer A writer.
+     * @param indentFactor The number of spaces to add to each level of
+     *  indentation.
+     * @param indent The indentation of the top level.
+     * @param sortKeys True if the keys of the objects within the array are
+     *  to be written in sorted order.
+     * @return The writer.
+     * @throws JSONException If the array contains an invalid number.
+     */
+    public Writer write(Writer writer, int indentFactor, int indent,
+            boolean sortKeys) throws JSONException {
+        try {
+            int len = length();
+            if (len == 0) {
+                writer.write("[]");
+                return writer;
+            }
+            writer.write('[');
+            if (len == 1) {
+                JSONObject.writeValue(writer, this.myArrayList.get(0),
+                        indentFactor, indent, sortKeys);
+            } else {
+                int newindent = indent + indentFactor;
+                writer.write('\n');
+                for (int i = 0; i < len; i += 1) {
+                    if (i > 0) {
+                        writer.write(",\n");
+                    }
+                    JSONObject.indent(writer, newindent);
+                    JSONObject.writeValue(writer, this.myArrayList.get(i),
+                            indentFactor, newindent, sortKeys);
+                }
+                writer.write('\n');
+                JSONObject.indent(writer, indent);
+            }
+            writer.write(']');
+            return writer;
+        } catch (IOException e) {
+           throw new JSONException(e);
+        }
+    }
+
+
+    /**
+     * Write the contents of the JSONArray as UTF-8 JSON text into direct
+     * buffers taken from a pool. For compactness, no whitespace is added.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     * @param pool A pool of direct buffers.
+     * @return The buffers, flipped so that they are ready to be written to a
+     *  channel. They should be given back to the pool when they have been.
+     *  If the writing fails, the buffers already taken are given back.
+     * @throws JSONException
+     */
+    public ByteBuffer[] write(JSONBufferPool pool) throws JSONException {
+        JSONByteWriter writer = pool.acquireWriter();
+        try {
+            this.write(writer, false);
+            return writer.toBuffers();
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        } finally {
+            pool.releaseWriter(writer);
         }
-        sb.append(']');
-        return sb.toString();
     }
 
 
@@ -887,30 +1228,73 @@ public class JSONArray {
      * @throws JSONException
      */
     public Writer write(Writer writer) throws JSONException {
-        try {
-            boolean b = false;
-            int     len = length();
+        return this.write(writer, false);
+    }
 
-            writer.write('[');
 
-            for (int i = 0; i < len; i += 1) {
-                if (b) {
-                    writer.write(',');
-                }
-                Object v = this.myArrayList.get(i);
-                if (v instanceof JSONObject) {
-                    ((JSONObject)v).write(writer);
-                } else if (v instanceof JSONArray) {
-                    ((JSONArray)v).write(writer);
-                } else {
-                    writer.write(JSONObject.valueToString(v));
-                }
-                b = true;
+    /**
+     * Write the contents of the JSONArray as JSON text to a writer.
+     * For compactness, no whitespace is added. If the keys are sorted, the
+     * text is canonical.
+     * <p>
+     * Warning: This method assumes that the data structure is acyclical.
+     * @param writer A writer.
+     * @param sortKeys True if the keys of the objects within the array are
+     *  to be written in sorted order.
+     * @return The writer.
+     * @throws JSONException If the array contains an invalid number.
+     */
+    public Writer write(Writer writer, boolean sortKeys)
+            throws JSONException {
+        try {
+            if (this.frozen && !sortKeys) {
+                writer.write(frozenText());
+            } else {
+                writeElements(writer, sortKeys);
             }
-            writer.write(']');
             return writer;
         } catch (IOException e) {
            throw new JSONException(e);
         }
     }
+
+
+    /**
+     * Write the elements of the JSONArray as compact JSON text. The text of a
+     * frozen JSONArray is used if it has already been made, but it is not
+     * kept if it has not, so that arrays within a frozen value that is
+     * written do not each keep a copy of their text.
+     * @param writer A writer.
+     * @param sortKeys True if the keys of the objects within the array are
+     *  to be written in sorted order.
+     * @throws JSONException If the array contains an invalid number.
+     * @throws IOException
+     */
+    void writeElements(Writer writer, boolean sortKeys)
+            throws JSONException, IOException {
+        String text = this.text;
+        if (text != null && !sortKeys) {
+            writer.write(text);
+            return;
+        }
+        NumberList numbers = numbers();
+        boolean    b = false;
+        int        len = length();
+
+        writer.write('[');
+
+        for (int i = 0; i < len; i += 1) {
+            if (b) {
+                writer.write(',');
+            }
+            if (numbers != null) {
+                numbers.write(i, writer);
+            } else {
+                JSONObject.writeValue(writer, this.myArrayList.get(i),
+                        sortKeys);
+            }
+            b = true;
+        }
+        writer.write(']');
+    }
 }
\ No newline at end of file
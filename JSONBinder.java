@@ -0,0 +1,1160 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * JSONBinder populates Java objects from JSON. It can bind a value that has
+ * already been parsed, such as a JSONObject or JSONArray, or it can read
+ * straight from a JSONTokener without building a tree. For example, <pre>
+ * Book book = (Book)JSONBinder.read(new JSONTokener(myReader), Book.class);
+ * </pre>
+ * <p>
+ * A JSONObject is bound to a record by calling its canonical constructor
+ * with the members whose keys are the names of its components. It is bound
+ * to any other class by making an instance with its public constructor that
+ * takes no parameters, and then giving each member to the public setter
+ * method or public field named by its key: the key <code>"pages"</code> is
+ * given to <code>setPages</code>, or else to a field called
+ * <code>pages</code>. Members that nothing is named for are skipped. A
+ * JSONObject can also be bound to a Map, and a JSONArray to an array or a
+ * Collection. The types of their elements are taken from the generic type,
+ * so a <code>List&lt;Book&gt;</code> property holds Books.
+ * <p>
+ * Strings, numbers, and booleans are converted as the JSONObject getters
+ * convert them, so <code>"12"</code> can be bound to an int. A string can
+ * also be bound to an enum constant of the same name.
+ * <p>
+ * The setters, fields, and constructor of each class are found once and
+ * kept for as long as the class is. An int, long, double, or boolean
+ * property is set without boxing its value.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+public class JSONBinder {
+
+    /**
+     * The kinds of setter, by the type they take.
+     */
+    private static final int OTHER = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int BOOLEAN = 4;
+
+    /**
+     * The lookup used to make method handles.
+     */
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+
+    /**
+     * Bind a value to a type.
+     * @param value A JSONObject, JSONArray, String, Number, Boolean,
+     *  JSONObject.NULL, or null.
+     * @param type The type to bind to. This can be a Class, or a generic
+     *  type such as the one returned by Field.getGenericType.
+     * @return An object of the type, or null if the value is null or
+     *  JSONObject.NULL.
+     * @throws JSONException If the value cannot be bound to the type.
+     */
+    public static Object bind(Object value, Type type) throws JSONException {
+        Class klass = rawClass(type);
+        if (value == null || value == JSONObject.NULL) {
+            if (klass.isPrimitive()) {
+                throw mismatch(value, type);
+            }
+            return null;
+        }
+        if (klass.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof JSONObject) {
+            if (isScalar(klass)) {
+                throw mismatch(value, type);
+            }
+            if (Map.class.isAssignableFrom(klass)) {
+                return bindMap((JSONObject)value, type, klass);
+            }
+            return bindObject((JSONObject)value, klass);
+        }
+        if (value instanceof JSONArray) {
+            if (klass.isArray()) {
+                return bindArray((JSONArray)value, type, klass);
+            }
+            if (Collection.class.isAssignableFrom(klass)) {
+                JSONArray ja = (JSONArray)value;
+                Type element = argument(type, 0);
+                Collection collection = newCollection(klass);
+                for (int i = 0; i < ja.length(); i += 1) {
+                    collection.add(bind(ja.opt(i), element));
+                }
+                return collection;
+            }
+            throw mismatch(value, type);
+        }
+        return scalar(value, type, klass);
+    }
+
+
+    /**
+     * Read a JSON text from a JSONTokener and bind it to a type. The text is
+     * bound as it is read, without first being made into a JSONObject or
+     * JSONArray.
+     * @param x A JSONTokener.
+     * @param type The type to bind to.
+     * @return An object of the type, or null if the text is null.
+     * @throws JSONException If there is a syntax error, or if the text
+     *  cannot be bound to the type.
+     */
+    public static Object read(JSONTokener x, Type type) throws JSONException {
+        JSONReader reader = new JSONReader(x);
+        reader.next();
+        return read(reader, type);
+    }
+
+
+    /**
+     * Bind the value of the current token of a JSONReader to a type. If the
+     * current token is START_OBJECT or START_ARRAY, the rest of the object
+     * or array is read, and the reader is left as if the matching
+     * END_OBJECT or END_ARRAY had been returned.
+     * @param reader A JSONReader.
+     * @param type The type to bind to.
+     * @return An object of the type, or null if the value is null.
+     * @throws JSONException If the current token does not begin a value,
+     *  if there is a syntax error, or if the value cannot be bound to the
+     *  type.
+     */
+    public static Object read(JSONReader reader, Type type)
+            throws JSONException {
+        Class klass = rawClass(type);
+        switch (reader.getToken()) {
+        case JSONReader.START_OBJECT:
+            if (klass.isAssignableFrom(JSONObject.class)) {
+                return reader.readValue();
+            }
+            if (isScalar(klass)) {
+                throw cannotBind("a JSONObject", type);
+            }
+            if (Map.class.isAssignableFrom(klass)) {
+                Map map = newMap(klass);
+                Type key = argument(type, 0);
+                Type value = argument(type, 1);
+                while (reader.next() == JSONReader.KEY) {
+                    Object name = bind(reader.getValue(), key);
+                    reader.next();
+                    map.put(name, read(reader, value));
+                }
+                return map;
+            }
+            return readObject(reader, klass);
+        case JSONReader.START_ARRAY:
+            if (klass.isAssignableFrom(JSONArray.class)) {
+                return reader.readValue();
+            }
+            if (klass.isArray()) {
+                return readArray(reader, type, klass);
+            }
+            if (Collection.class.isAssignableFrom(klass)) {
+                Type element = argument(type, 0);
+                Collection collection = newCollection(klass);
+                while (reader.next() != JSONReader.END_ARRAY) {
+                    collection.add(read(reader, element));
+                }
+                return collection;
+            }
+            throw cannotBind("a JSONArray", type);
+        case JSONReader.VALUE_STRING:
+        case JSONReader.VALUE_NUMBER:
+        case JSONReader.VALUE_BOOLEAN:
+        case JSONReader.VALUE_NULL:
+            return bind(reader.getValue(), type);
+        default:
+            throw new JSONException("Not at the start of a value.");
+        }
+    }
+
+
+    /**
+     * Get the type argument of a generic type.
+     * @param type A type.
+     * @param index The index of the type argument.
+     * @return The type argument, or Object.class if the type is not generic.
+     */
+    private static Type argument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType)type)
+                .getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+
+    /**
+     * Bind a JSONArray to an array. An array of numbers that was parsed
+     * from a text is bound to an int, long, or double array without boxing
+     * its elements.
+     */
+    private static Object bindArray(JSONArray ja, Type type, Class klass)
+            throws JSONException {
+        Class component = klass.getComponentType();
+        int length = ja.length();
+        if (component == long.class) {
+            return ja.toLongArray();
+        }
+        if (component == double.class) {
+            return ja.toDoubleArray();
+        }
+        if (component == int.class) {
+            long[] longs = ja.toLongArray();
+            int[] ints = new int[length];
+            for (int i = 0; i < length; i += 1) {
+                ints[i] = (int)longs[i];
+            }
+            return ints;
+        }
+        if (component == boolean.class) {
+            boolean[] booleans = new boolean[length];
+            for (int i = 0; i < length; i += 1) {
+                booleans[i] = ja.getBoolean(i);
+            }
+            return booleans;
+        }
+        Type element = componentType(type);
+        Object array = Array.newInstance(component, length);
+        for (int i = 0; i < length; i += 1) {
+            Array.set(array, i, bind(ja.opt(i), element));
+        }
+        return array;
+    }
+
+
+    /**
+     * Bind a JSONObject to a Map.
+     */
+    private static Map bindMap(JSONObject jo, Type type, Class klass)
+            throws JSONException {
+        Map map = newMap(klass);
+        Type key = argument(type, 0);
+        Type value = argument(type, 1);
+        Iterator keys = jo.keys();
+        while (keys.hasNext()) {
+            String name = (String)keys.next();
+            map.put(bind(name, key), bind(jo.opt(name), value));
+        }
+        return map;
+    }
+
+
+    /**
+     * Bind a JSONObject to a record or bean.
+     */
+    private static Object bindObject(JSONObject jo, Class klass)
+            throws JSONException {
+        Plan plan = Plan.forClass(klass);
+        if (plan.components != null) {
+            Object[] arguments = plan.defaults.clone();
+            for (int i = 0; i < plan.components.length; i += 1) {
+                Object value = jo.opt(plan.components[i]);
+                if (value != null && value != JSONObject.NULL) {
+                    arguments[i] = bind(value, plan.types[i]);
+                }
+            }
+            return plan.create(arguments);
+        }
+        Object bean = plan.create(null);
+        Iterator keys = jo.keys();
+        while (keys.hasNext()) {
+            String key = (String)keys.next();
+            Setter setter = (Setter)plan.setters.get(key);
+            if (setter != null) {
+                set(setter, bean, jo.opt(key));
+            }
+        }
+        return bean;
+    }
+
+
+    /**
+     * Make the exception thrown when a value cannot be bound to a type.
+     * @param description A description of the value.
+     * @param type The type.
+     */
+    private static JSONException cannotBind(String description, Type type) {
+        return new JSONException("Cannot bind " + description + " to " +
+            type.getTypeName() + ".");
+    }
+
+
+    /**
+     * Get the type of the elements of an array type.
+     */
+    private static Type componentType(Type type) {
+        if (type instanceof GenericArrayType) {
+            return ((GenericArrayType)type).getGenericComponentType();
+        }
+        return rawClass(type).getComponentType();
+    }
+
+
+    /**
+     * Determine if a class is one that a value, but not a JSONObject, can
+     * be bound to.
+     */
+    private static boolean isScalar(Class klass) {
+        return klass.isPrimitive() || klass.isEnum() ||
+            klass == String.class || klass == Boolean.class ||
+            klass == Character.class || Number.class.isAssignableFrom(klass);
+    }
+
+
+    /**
+     * Make the exception thrown when a value cannot be bound to a type.
+     */
+    private static JSONException mismatch(Object value, Type type) {
+        String string;
+        if (value instanceof String) {
+            string = JSONObject.quote((String)value);
+        } else if (value instanceof JSONObject) {
+            string = "a JSONObject";
+        } else if (value instanceof JSONArray) {
+            string = "a JSONArray";
+        } else {
+            string = String.valueOf(value);
+        }
+        return cannotBind(string, type);
+    }
+
+
+    /**
+     * Make a Collection of a class.
+     */
+    private static Collection newCollection(Class klass)
+            throws JSONException {
+        if (klass.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList();
+        }
+        if (klass.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet();
+        }
+        if (klass.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet();
+        }
+        return (Collection)Plan.forClass(klass).create(null);
+    }
+
+
+    /**
+     * Make a Map of a class.
+     */
+    private static Map newMap(Class klass) throws JSONException {
+        if (klass.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap();
+        }
+        if (klass.isAssignableFrom(TreeMap.class)) {
+            return new TreeMap();
+        }
+        return (Map)Plan.forClass(klass).create(null);
+    }
+
+
+    /**
+     * Get the class of a type.
+     */
+    private static Class rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class)type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType)type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(componentType(type)), 0)
+                .getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType)type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable)type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+
+    /**
+     * Read the rest of an array and bind it to an array type. The elements
+     * of an int, long, double, or boolean array are not boxed.
+     */
+    private static Object readArray(JSONReader reader, Type type,
+            Class klass) throws JSONException {
+        Class component = klass.getComponentType();
+        int length = 0;
+        if (component == int.class) {
+            int[] ints = new int[8];
+            while (reader.next() != JSONReader.END_ARRAY) {
+                if (length == ints.length) {
+                    int[] grown = new int[length * 2];
+                    System.arraycopy(ints, 0, grown, 0, length);
+                    ints = grown;
+                }
+                ints[length] = toInt(value(reader, component), component);
+                length += 1;
+            }
+            int[] result = new int[length];
+            System.arraycopy(ints, 0, result, 0, length);
+            return result;
+        }
+        if (component == long.class) {
+            long[] longs = new long[8];
+            while (reader.next() != JSONReader.END_ARRAY) {
+                if (length == longs.length) {
+                    long[] grown = new long[length * 2];
+                    System.arraycopy(longs, 0, grown, 0, length);
+                    longs = grown;
+                }
+                longs[length] = toLong(value(reader, component), component);
+                length += 1;
+            }
+            long[] result = new long[length];
+            System.arraycopy(longs, 0, result, 0, length);
+            return result;
+        }
+        if (component == double.class) {
+            double[] doubles = new double[8];
+            while (reader.next() != JSONReader.END_ARRAY) {
+                if (length == doubles.length) {
+                    double[] grown = new double[length * 2];
+                    System.arraycopy(doubles, 0, grown, 0, length);
+                    doubles = grown;
+                }
+                doubles[length] = toDouble(value(reader, component),
+                        component);
+                length += 1;
+            }
+            double[] result = new double[length];
+            System.arraycopy(doubles, 0, result, 0, length);
+            return result;
+        }
+        if (component == boolean.class) {
+            boolean[] booleans = new boolean[8];
+            while (reader.next() != JSONReader.END_ARRAY) {
+                if (length == booleans.length) {
+                    boolean[] grown = new boolean[length * 2];
+                    System.arraycopy(booleans, 0, grown, 0, length);
+                    booleans = grown;
+                }
+                booleans[length] = toBoolean(value(reader, component),
+                        component);
+                length += 1;
+            }
+            boolean[] result = new boolean[length];
+            System.arraycopy(booleans, 0, result, 0, length);
+            return result;
+        }
+        Type element = componentType(type);
+        List list = new ArrayList();
+        while (reader.next() != JSONReader.END_ARRAY) {
+            list.add(read(reader, element));
+        }
+        Object array = Array.newInstance(component, list.size());
+        for (int i = 0; i < list.size(); i += 1) {
+            Array.set(array, i, list.get(i));
+        }
+        return array;
+    }
+
+
+    /**
+     * Read the rest of an object and bind it to a record or bean. Members
+     * that are not bound are skipped without being parsed into values.
+     */
+    private static Object readObject(JSONReader reader, Class klass)
+            throws JSONException {
+        Plan plan = Plan.forClass(klass);
+        if (plan.components != null) {
+            Object[] arguments = plan.defaults.clone();
+            while (reader.next() == JSONReader.KEY) {
+                String key = (String)reader.getValue();
+                int index = plan.indexOf(key);
+                reader.next();
+                if (index < 0) {
+                    reader.skipChildren();
+                } else if (reader.getToken() != JSONReader.VALUE_NULL) {
+                    arguments[index] = read(reader, plan.types[index]);
+                }
+            }
+            return plan.create(arguments);
+        }
+        Object bean = plan.create(null);
+        while (reader.next() == JSONReader.KEY) {
+            Setter setter = (Setter)plan.setters.get(reader.getValue());
+            reader.next();
+            if (setter == null) {
+                reader.skipChildren();
+            } else if (reader.getToken() == JSONReader.START_OBJECT ||
+                    reader.getToken() == JSONReader.START_ARRAY) {
+                if (setter.kind != OTHER) {
+                    throw cannotBind(reader.getToken() ==
+                        JSONReader.START_OBJECT ? "a JSONObject" :
+                        "a JSONArray", setter.klass);
+                }
+                setter.set(bean, read(reader, setter.type));
+            } else {
+                set(setter, bean, reader.getValue());
+            }
+        }
+        return bean;
+    }
+
+
+    /**
+     * Convert a scalar value to a class that is not an array, Collection,
+     * or Map.
+     */
+    private static Object scalar(Object value, Type type, Class klass)
+            throws JSONException {
+        if (klass == String.class) {
+            return value.toString();
+        }
+        if (klass == int.class || klass == Integer.class) {
+            return Integer.valueOf(toInt(value, type));
+        }
+        if (klass == long.class || klass == Long.class) {
+            return Long.valueOf(toLong(value, type));
+        }
+        if (klass == double.class || klass == Double.class) {
+            return Double.valueOf(toDouble(value, type));
+        }
+        if (klass == boolean.class || klass == Boolean.class) {
+            return toBoolean(value, type) ? Boolean.TRUE : Boolean.FALSE;
+        }
+        if (klass == float.class || klass == Float.class) {
+            return Float.valueOf((float)toDouble(value, type));
+        }
+        if (klass == short.class || klass == Short.class) {
+            return Short.valueOf((short)toInt(value, type));
+        }
+        if (klass == byte.class || klass == Byte.class) {
+            return Byte.valueOf((byte)toInt(value, type));
+        }
+        try {
+            if (klass == char.class || klass == Character.class) {
+                if (((String)value).length() == 1) {
+                    return Character.valueOf(((String)value).charAt(0));
+                }
+            } else if (klass == BigDecimal.class) {
+                return new BigDecimal(value.toString());
+            } else if (klass == BigInteger.class) {
+                return new BigInteger(value.toString());
+            } else if (klass == Number.class) {
+                Object number = JSONObject.stringToValue((String)value);
+                if (number instanceof Number) {
+                    return number;
+                }
+            } else if (klass.isEnum()) {
+                return Enum.valueOf(klass, (String)value);
+            }
+        } catch (Exception ignore) {
+        }
+        throw mismatch(value, type);
+    }
+
+
+    /**
+     * Give a scalar value, JSONObject.NULL, or a value that has already
+     * been parsed to a setter. JSONObject.NULL sets a property that is not
+     * primitive to null, and leaves one that is primitive alone.
+     */
+    private static void set(Setter setter, Object bean, Object value)
+            throws JSONException {
+        if (value == null || value == JSONObject.NULL) {
+            if (!setter.klass.isPrimitive()) {
+                setter.set(bean, null);
+            }
+            return;
+        }
+        switch (setter.kind) {
+        case INT:
+            setter.setInt(bean, toInt(value, setter.klass));
+            break;
+        case LONG:
+            setter.setLong(bean, toLong(value, setter.klass));
+            break;
+        case DOUBLE:
+            setter.setDouble(bean, toDouble(value, setter.klass));
+            break;
+        case BOOLEAN:
+            setter.setBoolean(bean, toBoolean(value, setter.klass));
+            break;
+        default:
+            setter.set(bean, bind(value, setter.type));
+        }
+    }
+
+
+    /**
+     * Convert a value to a boolean as JSONObject.getBoolean does.
+     */
+    private static boolean toBoolean(Object value, Type type)
+            throws JSONException {
+        if (value.equals(Boolean.FALSE) ||
+                (value instanceof String &&
+                ((String)value).equalsIgnoreCase("false"))) {
+            return false;
+        } else if (value.equals(Boolean.TRUE) ||
+                (value instanceof String &&
+                ((String)value).equalsIgnoreCase("true"))) {
+            return true;
+        }
+        throw mismatch(value, type);
+    }
+
+
+    /**
+     * Convert a value to a double as JSONObject.getDouble does.
+     */
+    private static double toDouble(Object value, Type type)
+            throws JSONException {
+        try {
+            return value instanceof Number ?
+                ((Number)value).doubleValue() :
+                Double.parseDouble((String)value);
+        } catch (Exception e) {
+            throw mismatch(value, type);
+        }
+    }
+
+
+    /**
+     * Convert a value to an int as JSONObject.getInt does.
+     */
+    private static int toInt(Object value, Type type) throws JSONException {
+        try {
+            return value instanceof Number ?
+                ((Number)value).intValue() :
+                Integer.parseInt((String)value);
+        } catch (Exception e) {
+            throw mismatch(value, type);
+        }
+    }
+
+
+    /**
+     * Convert a value to a long as JSONObject.getLong does.
+     */
+    private static long toLong(Object value, Type type)
+            throws JSONException {
+        try {
+            return value instanceof Number ?
+                ((Number)value).longValue() :
+                Long.parseLong((String)value);
+        } catch (Exception e) {
+            throw mismatch(value, type);
+        }
+    }
+
+
+    /**
+     * Get the value of the current token, which must not begin an object
+     * or array.
+     */
+    private static Object value(JSONReader reader, Class klass)
+            throws JSONException {
+        switch (reader.getToken()) {
+        case JSONReader.START_OBJECT:
+            throw cannotBind("a JSONObject", klass);
+        case JSONReader.START_ARRAY:
+            throw cannotBind("a JSONArray", klass);
+        default:
+            return reader.getValue();
+        }
+    }
+
+
+    /**
+     * A Plan holds what is needed to bind a JSONObject to a class: the
+     * constructor, and either the components of a record or the setters of
+     * a bean. Finding them with reflection is costly, so it is done once
+     * per class and the result is kept for as long as the class is.
+     */
+    private static final class Plan {
+
+        /**
+         * The Plan of each class that has been asked for.
+         */
+        private static final ClassValue cache = new ClassValue() {
+            protected Object computeValue(Class klass) {
+                return new Plan(klass);
+            }
+        };
+
+        /**
+         * The names of the components of a record, or null if the class is
+         * not a record.
+         */
+        final String[] components;
+
+        /**
+         * The constructor, as a method handle that returns Object. It takes
+         * no parameters, or for a record an Object[] of the components. It
+         * is null if the class cannot be made.
+         */
+        private final MethodHandle creator;
+
+        /**
+         * The arguments for the components that are missing: null, or zero
+         * or false for a primitive.
+         */
+        final Object[] defaults;
+
+        /**
+         * The name of the class.
+         */
+        private final String name;
+
+        /**
+         * The setters of a bean, by key.
+         */
+        final Map setters;
+
+        /**
+         * The generic types of the components of a record.
+         */
+        final Type[] types;
+
+
+        /**
+         * Find the constructor and the components or setters of a class.
+         * A setter is a public method with one parameter whose name is
+         * "set" followed by an uppercase letter. The key is the rest of the
+         * name, with its first letter made lowercase unless the second
+         * letter is also uppercase, as with the keys of getters.
+         * @param klass A class.
+         */
+        private Plan(Class klass) {
+            MethodHandle creator = null;
+            this.name = klass.getName();
+            Object[] components = recordComponents(klass);
+            if (components != null) {
+                this.components = new String[components.length];
+                this.types = new Type[components.length];
+                this.defaults = new Object[components.length];
+                this.setters = null;
+                Class[] classes = new Class[components.length];
+                try {
+                    for (int i = 0; i < components.length; i += 1) {
+                        Class type = components[i].getClass();
+                        this.components[i] = (String)type
+                            .getMethod("getName").invoke(components[i]);
+                        this.types[i] = (Type)type
+                            .getMethod("getGenericType").invoke(components[i]);
+                        classes[i] = (Class)type
+                            .getMethod("getType").invoke(components[i]);
+                        if (classes[i].isPrimitive()) {
+                            this.defaults[i] = Array.get(
+                                    Array.newInstance(classes[i], 1), 0);
+                        }
+                    }
+                    creator = lookup.unreflectConstructor(
+                            klass.getDeclaredConstructor(classes))
+                        .asSpreader(Object[].class, classes.length)
+                        .asType(MethodType.methodType(Object.class,
+                                Object[].class));
+                } catch (Throwable e) {
+                    creator = null;
+                }
+                this.creator = creator;
+                return;
+            }
+            this.components = null;
+            this.types = null;
+            this.defaults = null;
+            if (!klass.isInterface() &&
+                    !Modifier.isAbstract(klass.getModifiers())) {
+                try {
+                    creator = lookup.unreflectConstructor(
+                            klass.getConstructor(new Class[0]))
+                        .asType(MethodType.methodType(Object.class));
+                } catch (Throwable e) {
+                    creator = null;
+                }
+            }
+            this.creator = creator;
+            this.setters = new HashMap();
+            Method[] methods = klass.getMethods();
+            for (int i = 0; i < methods.length; i += 1) {
+                Method method = methods[i];
+                String key = method.getName();
+                if (key.startsWith("set") && key.length() > 3 &&
+                        Character.isUpperCase(key.charAt(3)) &&
+                        method.getParameterTypes().length == 1 &&
+                        !Modifier.isStatic(method.getModifiers())) {
+                    key = key.substring(3);
+                    if (key.length() == 1) {
+                        key = key.toLowerCase();
+                    } else if (!Character.isUpperCase(key.charAt(1))) {
+                        key = key.substring(0, 1).toLowerCase() +
+                            key.substring(1);
+                    }
+                    if (!this.setters.containsKey(key)) {
+                        try {
+                            this.setters.put(key, new Setter(method));
+                        } catch (IllegalAccessException ignore) {
+                        }
+                    }
+                }
+            }
+
+// A name can be shared by fields of the class and of its supertypes, so each
+// name is resolved with getField to find the field it means.
+
+            Field[] fields = klass.getFields();
+            for (int i = 0; i < fields.length; i += 1) {
+                String key = fields[i].getName();
+                if (!this.setters.containsKey(key)) {
+                    try {
+                        Field field = klass.getField(key);
+                        int modifiers = field.getModifiers();
+                        if (!Modifier.isStatic(modifiers) &&
+                                !Modifier.isFinal(modifiers)) {
+                            this.setters.put(key, new Setter(field));
+                        }
+                    } catch (Exception ignore) {
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * Make an object of the class.
+         * @param arguments The components of a record, or null for a bean.
+         * @return The object.
+         * @throws JSONException If the class cannot be made, or if its
+         *  constructor throws.
+         */
+        Object create(Object[] arguments) throws JSONException {
+            if (this.creator == null) {
+                throw new JSONException("Cannot make a " + this.name + ".");
+            }
+            try {
+                return arguments == null ?
+                    (Object)this.creator.invokeExact() :
+                    (Object)this.creator.invokeExact(arguments);
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+
+
+        /**
+         * Get the Plan of a class, finding it the first time.
+         * @param klass A class.
+         * @return The Plan.
+         */
+        static Plan forClass(Class klass) {
+            return (Plan)cache.get(klass);
+        }
+
+
+        /**
+         * Get the index of the component of a record that has a name.
+         * @param key A name.
+         * @return The index, or -1 if there is no such component.
+         */
+        int indexOf(Object key) {
+            for (int i = 0; i < this.components.length; i += 1) {
+                if (this.components[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+
+        /**
+         * Get the components of a record. Records were added in Java 16, so
+         * they are found with reflection.
+         * @param klass A class.
+         * @return The RecordComponents, or null if the class is not a record.
+         */
+        private static Object[] recordComponents(Class klass) {
+            try {
+                return (Object[])Class.class.getMethod("getRecordComponents")
+                    .invoke(klass);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+
+    /**
+     * A Setter sets a property of a bean. It calls a setter method through
+     * an ObjIntConsumer, ObjLongConsumer, ObjDoubleConsumer, or BiConsumer
+     * made by LambdaMetafactory, which the JIT compiler can inline like an
+     * ordinary call. If one cannot be made, or if the property is boolean,
+     * it uses a method handle. A field is set through a method handle. In
+     * each case an int, long, double, or boolean is passed without boxing.
+     */
+    private static final class Setter {
+
+        /**
+         * The function that calls the setter, or null.
+         */
+        private final Object consumer;
+
+        /**
+         * The method handle. It takes the bean and the value, which is the
+         * primitive type of an int, long, double, or boolean property and
+         * Object otherwise.
+         */
+        private final MethodHandle handle;
+
+        /**
+         * The kind of the property.
+         */
+        final int kind;
+
+        /**
+         * The class of the property.
+         */
+        final Class klass;
+
+        /**
+         * The generic type of the property.
+         */
+        final Type type;
+
+
+        /**
+         * Make a setter for a setter method.
+         * @param method A public method with one parameter.
+         * @throws IllegalAccessException If the method cannot be called.
+         */
+        Setter(Method method) throws IllegalAccessException {
+            this.klass = method.getParameterTypes()[0];
+            this.type = method.getGenericParameterTypes()[0];
+            this.kind = kind(this.klass);
+            MethodHandle handle = lookup.unreflect(method);
+            MethodType type = MethodType.methodType(void.class,
+                    Object.class, this.kind == OTHER ? Object.class :
+                    this.klass);
+            Object consumer = null;
+            if (this.kind != BOOLEAN &&
+                    isVisible(method.getDeclaringClass()) &&
+                    isVisible(this.klass) &&
+                    isVisible(method.getReturnType())) {
+                Class face = this.kind == INT ? ObjIntConsumer.class :
+                    this.kind == LONG ? ObjLongConsumer.class :
+                    this.kind == DOUBLE ? ObjDoubleConsumer.class :
+                    BiConsumer.class;
+                MethodType instantiated = this.kind == OTHER ?
+                    handle.type().wrap() : handle.type();
+                try {
+                    CallSite site = LambdaMetafactory.metafactory(lookup,
+                            "accept", MethodType.methodType(face), type,
+                            handle, instantiated.changeReturnType(void.class));
+                    consumer = site.getTarget().invoke();
+                } catch (Throwable e) {
+                    consumer = null;
+                }
+            }
+            this.consumer = consumer;
+            this.handle = handle.asType(type);
+        }
+
+
+        /**
+         * Make a setter for a public field.
+         * @param field A public field that is neither static nor final.
+         * @throws IllegalAccessException If the field cannot be set.
+         */
+        Setter(Field field) throws IllegalAccessException {
+            this.klass = field.getType();
+            this.type = field.getGenericType();
+            this.kind = kind(this.klass);
+            this.consumer = null;
+            this.handle = lookup.unreflectSetter(field)
+                .asType(MethodType.methodType(void.class, Object.class,
+                        this.kind == OTHER ? Object.class : this.klass));
+        }
+
+
+        /**
+         * Determine if a class can be named from this package's class
+         * loader, as BeanProperties does.
+         */
+        private static boolean isVisible(Class klass) {
+            return BeanProperties.isVisible(klass);
+        }
+
+
+        /**
+         * Get the kind of a property by its class.
+         */
+        private static int kind(Class klass) {
+            if (klass == int.class) {
+                return INT;
+            }
+            if (klass == long.class) {
+                return LONG;
+            }
+            if (klass == double.class) {
+                return DOUBLE;
+            }
+            if (klass == boolean.class) {
+                return BOOLEAN;
+            }
+            return OTHER;
+        }
+
+
+        /**
+         * Set a property that is not int, long, double, or boolean.
+         * @param bean The bean.
+         * @param value The value, of the class of the property.
+         * @throws JSONException If the setter throws.
+         */
+        void set(Object bean, Object value) throws JSONException {
+            try {
+                if (this.consumer != null) {
+                    ((BiConsumer)this.consumer).accept(bean, value);
+                } else {
+                    this.handle.invokeExact(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+
+
+        /**
+         * Set a boolean property.
+         * @param bean The bean.
+         * @param value The value.
+         * @throws JSONException If the setter throws.
+         */
+        void setBoolean(Object bean, boolean value) throws JSONException {
+            try {
+                this.handle.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+
+
+        /**
+         * Set a double property.
+         * @param bean The bean.
+         * @param value The value.
+         * @throws JSONException If the setter throws.
+         */
+        void setDouble(Object bean, double value) throws JSONException {
+            try {
+                if (this.consumer != null) {
+                    ((ObjDoubleConsumer)this.consumer).accept(bean, value);
+                } else {
+                    this.handle.invokeExact(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+
+
+        /**
+         * Set an int property.
+         * @param bean The bean.
+         * @param value The value.
+         * @throws JSONException If the setter throws.
+         */
+        void setInt(Object bean, int value) throws JSONException {
+            try {
+                if (this.consumer != null) {
+                    ((ObjIntConsumer)this.consumer).accept(bean, value);
+                } else {
+                    this.handle.invokeExact(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+
+
+        /**
+         * Set a long property.
+         * @param bean The bean.
+         * @param value The value.
+         * @throws JSONException If the setter throws.
+         */
+        void setLong(Object bean, long value) throws JSONException {
+            try {
+                if (this.consumer != null) {
+                    ((ObjLongConsumer)this.consumer).accept(bean, value);
+                } else {
+                    this.handle.invokeExact(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+}
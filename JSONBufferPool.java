@@ -0,0 +1,184 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A JSONBufferPool keeps direct ByteBuffers so that they can be used again.
+ * A JSONByteWriter made with a pool writes into buffers that it takes from
+ * the pool, and the JSONObject and JSONArray write methods that take a pool
+ * return those buffers ready to be written to a channel. For example, <pre>
+ * ByteBuffer[] buffers = myJSONObject.write(pool);
+ * while (socketChannel.write(buffers) &gt; 0) {
+ *     ...
+ * }
+ * pool.release(buffers);</pre>
+ * A JSONWriter can write into pooled buffers through a JSONByteWriter: <pre>
+ * JSONByteWriter writer = new JSONByteWriter(pool);
+ * new JSONWriter(writer).object().key("id").value(id).endObject();
+ * ByteBuffer[] buffers = writer.toBuffers();</pre>
+ * <p>
+ * The pool also keeps the JSONByteWriters that those write methods use, so
+ * that their staging arrays are made once rather than on every call.
+ * <p>
+ * The pool may be used by several threads at once. A subclass can override
+ * acquire and release to get its buffers from somewhere else.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+public class JSONBufferPool {
+
+    /**
+     * The capacity of each buffer.
+     */
+    private final int capacity;
+
+    /**
+     * The number of buffers in the queue.
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * The largest number of buffers that are kept.
+     */
+    private final int limit;
+
+    /**
+     * The buffers that are free.
+     */
+    private final Queue queue = new ConcurrentLinkedQueue();
+
+    /**
+     * The number of JSONByteWriters in the writers queue.
+     */
+    private final AtomicInteger writerCount = new AtomicInteger();
+
+    /**
+     * The JSONByteWriters that are free, with their staging buffers, for
+     * the write methods of JSONObject and JSONArray.
+     */
+    private final Queue writers = new ConcurrentLinkedQueue();
+
+
+    /**
+     * Make a pool of 8192 byte buffers that keeps up to 64 of them.
+     */
+    public JSONBufferPool() {
+        this(8192, 64);
+    }
+
+
+    /**
+     * Make a pool.
+     * @param capacity The capacity of each buffer.
+     * @param limit The largest number of free buffers to keep. Buffers
+     *  that are released when the pool is full are left to the garbage
+     *  collector.
+     */
+    public JSONBufferPool(int capacity, int limit) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity <= 0");
+        }
+        this.capacity = capacity;
+        this.limit = limit;
+    }
+
+
+    /**
+     * Take a buffer from the pool, or make a new one if the pool is empty.
+     * @return An empty direct ByteBuffer.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = (ByteBuffer)this.queue.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(this.capacity);
+        }
+        this.count.decrementAndGet();
+        return buffer;
+    }
+
+
+    /**
+     * Give a buffer back to the pool. It must not be used after that.
+     * @param buffer A buffer that was taken from this pool.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != this.capacity) {
+            return;
+        }
+        if (this.count.incrementAndGet() > this.limit) {
+            this.count.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        this.queue.offer(buffer);
+    }
+
+
+    /**
+     * Give buffers back to the pool.
+     * @param buffers Buffers that were taken from this pool.
+     */
+    public void release(ByteBuffer[] buffers) {
+        for (int i = 0; i < buffers.length; i += 1) {
+            release(buffers[i]);
+        }
+    }
+
+
+    /**
+     * Take a JSONByteWriter that writes into buffers from this pool, or
+     * make a new one if none is free.
+     * @return A JSONByteWriter.
+     */
+    JSONByteWriter acquireWriter() {
+        JSONByteWriter writer = (JSONByteWriter)this.writers.poll();
+        if (writer == null) {
+            return new JSONByteWriter(this);
+        }
+        this.writerCount.decrementAndGet();
+        return writer;
+    }
+
+
+    /**
+     * Give a JSONByteWriter back to the pool. The direct buffers that it
+     * has filled but that were not taken by toBuffers are released first,
+     * so that nothing is lost if the writing failed.
+     * @param writer A JSONByteWriter taken from acquireWriter.
+     */
+    void releaseWriter(JSONByteWriter writer) {
+        writer.reset();
+        if (this.writerCount.incrementAndGet() > this.limit) {
+            this.writerCount.decrementAndGet();
+            return;
+        }
+        this.writers.offer(writer);
+    }
+}
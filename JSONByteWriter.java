@@ -0,0 +1,586 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSONByteWriter is a Writer that encodes what is written to it as UTF-8
+ * into a byte buffer, and writes the buffer to an OutputStream or a
+ * WritableByteChannel when it fills. The buffer is made once and reused.
+ * Runs of ASCII characters are copied into the buffer without going through
+ * a CharsetEncoder. For example, <pre>
+ * JSONByteWriter writer = new JSONByteWriter(response.getOutputStream());
+ * myJSONObject.write(writer);
+ * writer.flush();</pre>
+ * <p>
+ * When a JSONObject, JSONArray, or bean is written to a JSONByteWriter,
+ * its strings are escaped and its numbers are formatted straight into the
+ * buffer, without first being made into Strings.
+ * <p>
+ * A JSONByteWriter made with a JSONBufferPool instead copies its buffer
+ * into direct ByteBuffers taken from the pool, and toBuffers returns them
+ * ready to be written to a channel.
+ * <p>
+ * A lone surrogate character is written as <code>?</code>, as an
+ * OutputStreamWriter would write it. A channel should be in blocking mode.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+public class JSONByteWriter extends Writer {
+
+    /**
+     * The buffer.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The direct buffers that have been filled, or null if there is no
+     * pool.
+     */
+    private final List buffers;
+
+    /**
+     * The channel, or null if there is an output stream.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * A buffer into which doubles and floats are formatted.
+     */
+    private final char[] chars = new char[DoubleFormatter.MAX_LENGTH];
+
+    /**
+     * The number of bytes in the buffer.
+     */
+    private int count;
+
+    /**
+     * The direct buffer that is being filled, or null.
+     */
+    private ByteBuffer current;
+
+    /**
+     * The output stream, or null if there is a channel.
+     */
+    private final OutputStream out;
+
+    /**
+     * The pool, or null if there is an output stream or channel.
+     */
+    private final JSONBufferPool pool;
+
+    /**
+     * A high surrogate that was the last character written, or 0.
+     */
+    private char surrogate;
+
+    /**
+     * The buffer wrapped for writing to the channel, or null.
+     */
+    private final ByteBuffer wrapper;
+
+
+    /**
+     * Make a JSONByteWriter that writes to an output stream, with a buffer
+     * of 8192 bytes.
+     * @param out An output stream.
+     */
+    public JSONByteWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+
+    /**
+     * Make a JSONByteWriter that writes to an output stream.
+     * @param out An output stream.
+     * @param size The size of the buffer. It must be at least 32.
+     */
+    public JSONByteWriter(OutputStream out, int size) {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        if (size < 32) {
+            throw new IllegalArgumentException("Buffer size < 32");
+        }
+        this.buffer = new byte[size];
+        this.buffers = null;
+        this.channel = null;
+        this.out = out;
+        this.pool = null;
+        this.wrapper = null;
+    }
+
+
+    /**
+     * Make a JSONByteWriter that writes to a channel, with a buffer of 8192
+     * bytes.
+     * @param channel A channel.
+     */
+    public JSONByteWriter(WritableByteChannel channel) {
+        this(channel, 8192);
+    }
+
+
+    /**
+     * Make a JSONByteWriter that writes to a channel.
+     * @param channel A channel.
+     * @param size The size of the buffer. It must be at least 32.
+     */
+    public JSONByteWriter(WritableByteChannel channel, int size) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        if (size < 32) {
+            throw new IllegalArgumentException("Buffer size < 32");
+        }
+        this.buffer = new byte[size];
+        this.buffers = null;
+        this.channel = channel;
+        this.out = null;
+        this.pool = null;
+        this.wrapper = ByteBuffer.wrap(this.buffer);
+    }
+
+
+    /**
+     * Make a JSONByteWriter that writes into direct buffers taken from a
+     * pool.
+     * @param pool A pool.
+     */
+    public JSONByteWriter(JSONBufferPool pool) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        this.buffer = new byte[8192];
+        this.buffers = new ArrayList();
+        this.channel = null;
+        this.out = null;
+        this.pool = pool;
+        this.wrapper = null;
+    }
+
+
+    /**
+     * Flush the buffer and close the output stream or channel.
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (this.out != null) {
+                this.out.close();
+            } else if (this.channel != null) {
+                this.channel.close();
+            }
+        }
+    }
+
+
+    /**
+     * Write the bytes in the buffer to the output stream or channel.
+     * @throws IOException
+     */
+    private void drain() throws IOException {
+        if (this.count > 0) {
+            if (this.out != null) {
+                this.out.write(this.buffer, 0, this.count);
+            } else if (this.pool != null) {
+                int off = 0;
+                while (off < this.count) {
+                    if (this.current == null || !this.current.hasRemaining()) {
+                        if (this.current != null) {
+                            this.current.flip();
+                            this.buffers.add(this.current);
+                        }
+                        this.current = this.pool.acquire();
+                    }
+                    int length = Math.min(this.count - off,
+                            this.current.remaining());
+                    this.current.put(this.buffer, off, length);
+                    off += length;
+                }
+            } else {
+                this.wrapper.clear();
+                this.wrapper.limit(this.count);
+                while (this.wrapper.hasRemaining()) {
+                    this.channel.write(this.wrapper);
+                }
+            }
+            this.count = 0;
+        }
+    }
+
+
+    /**
+     * Encode a character that is not ASCII, or that follows a high
+     * surrogate.
+     * @param c A character.
+     * @throws IOException
+     */
+    private void encode(char c) throws IOException {
+        if (this.surrogate != 0) {
+            char high = this.surrogate;
+            this.surrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(high, c);
+                reserve(4);
+                this.buffer[this.count] = (byte)(0xF0 | (code >> 18));
+                this.buffer[this.count + 1] =
+                    (byte)(0x80 | ((code >> 12) & 0x3F));
+                this.buffer[this.count + 2] =
+                    (byte)(0x80 | ((code >> 6) & 0x3F));
+                this.buffer[this.count + 3] = (byte)(0x80 | (code & 0x3F));
+                this.count += 4;
+                return;
+            }
+            reserve(1);
+            this.buffer[this.count++] = '?';
+        }
+        if (c < 0x80) {
+            reserve(1);
+            this.buffer[this.count++] = (byte)c;
+        } else if (c < 0x800) {
+            reserve(2);
+            this.buffer[this.count] = (byte)(0xC0 | (c >> 6));
+            this.buffer[this.count + 1] = (byte)(0x80 | (c & 0x3F));
+            this.count += 2;
+        } else if (Character.isHighSurrogate(c)) {
+            this.surrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            reserve(1);
+            this.buffer[this.count++] = '?';
+        } else {
+            reserve(3);
+            this.buffer[this.count] = (byte)(0xE0 | (c >> 12));
+            this.buffer[this.count + 1] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            this.buffer[this.count + 2] = (byte)(0x80 | (c & 0x3F));
+            this.count += 3;
+        }
+    }
+
+
+    /**
+     * Write the buffer to the output stream, channel, or direct buffers,
+     * and flush the output stream. A high surrogate that has not yet been followed by a
+     * character is kept.
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        drain();
+        if (this.out != null) {
+            this.out.flush();
+        }
+    }
+
+
+    /**
+     * Discard what has been written and not yet taken, giving the direct
+     * buffers that hold it back to the pool, so that the JSONByteWriter
+     * can be used again.
+     */
+    void reset() {
+        this.count = 0;
+        this.surrogate = 0;
+        if (this.pool != null) {
+            if (this.current != null) {
+                this.pool.release(this.current);
+                this.current = null;
+            }
+            for (int i = 0; i < this.buffers.size(); i += 1) {
+                this.pool.release((ByteBuffer)this.buffers.get(i));
+            }
+            this.buffers.clear();
+        }
+    }
+
+
+    /**
+     * Make room in the buffer.
+     * @param length The number of bytes needed, which is at most 32.
+     * @throws IOException
+     */
+    private void reserve(int length) throws IOException {
+        if (this.count + length > this.buffer.length) {
+            drain();
+        }
+    }
+
+
+    /**
+     * Write a high surrogate that was not followed by a low surrogate as
+     * <code>?</code>.
+     * @throws IOException
+     */
+    private void settle() throws IOException {
+        if (this.surrogate != 0) {
+            this.surrogate = 0;
+            reserve(1);
+            this.buffer[this.count++] = '?';
+        }
+    }
+
+
+    /**
+     * Take the direct buffers that have been written. They are flipped, so
+     * they are ready to be written to a channel, and they should be given
+     * back to the pool when they have been. The JSONByteWriter can then be
+     * used to write more text into new buffers.
+     * @return The buffers, or an empty array if nothing has been written.
+     * @throws IOException If the JSONByteWriter was not made with a pool.
+     */
+    public ByteBuffer[] toBuffers() throws IOException {
+        if (this.pool == null) {
+            throw new IOException("JSONByteWriter has no pool.");
+        }
+        drain();
+        if (this.current != null && this.current.position() > 0) {
+            this.current.flip();
+            this.buffers.add(this.current);
+            this.current = null;
+        }
+        ByteBuffer[] buffers = (ByteBuffer[])this.buffers
+            .toArray(new ByteBuffer[this.buffers.size()]);
+        this.buffers.clear();
+        return buffers;
+    }
+
+
+    /**
+     * Write a run of ASCII characters.
+     * @param chars The characters.
+     * @param off The index of the first character.
+     * @param len The number of characters.
+     * @throws IOException
+     */
+    private void writeASCII(char[] chars, int off, int len)
+            throws IOException {
+        settle();
+        reserve(len);
+        for (int i = 0; i < len; i += 1) {
+            this.buffer[this.count + i] = (byte)chars[off + i];
+        }
+        this.count += len;
+    }
+
+
+    /**
+     * Write a character.
+     * @param c The character.
+     * @throws IOException
+     */
+    public void write(int c) throws IOException {
+        if (c < 0x80 && this.surrogate == 0) {
+            if (this.count == this.buffer.length) {
+                drain();
+            }
+            this.buffer[this.count++] = (byte)c;
+        } else {
+            encode((char)c);
+        }
+    }
+
+
+    /**
+     * Write a run of characters.
+     * @param cbuf The characters.
+     * @param off The index of the first character.
+     * @param len The number of characters.
+     * @throws IOException
+     */
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (this.surrogate == 0) {
+                if (this.count == this.buffer.length) {
+                    drain();
+                }
+                byte[] buffer = this.buffer;
+                int    count = this.count;
+                int    limit = Math.min(end, off + buffer.length - count);
+                char   c;
+                while (off < limit && (c = cbuf[off]) < 0x80) {
+                    buffer[count] = (byte)c;
+                    count += 1;
+                    off += 1;
+                }
+                this.count = count;
+                if (off == limit) {
+                    continue;
+                }
+            }
+            encode(cbuf[off]);
+            off += 1;
+        }
+    }
+
+
+    /**
+     * Write a run of the characters of a string.
+     * @param str The string.
+     * @param off The index of the first character.
+     * @param len The number of characters.
+     * @throws IOException
+     */
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (this.surrogate == 0) {
+                if (this.count == this.buffer.length) {
+                    drain();
+                }
+                byte[] buffer = this.buffer;
+                int    count = this.count;
+                int    limit = Math.min(end, off + buffer.length - count);
+                char   c;
+                while (off < limit && (c = str.charAt(off)) < 0x80) {
+                    buffer[count] = (byte)c;
+                    count += 1;
+                    off += 1;
+                }
+                this.count = count;
+                if (off == limit) {
+                    continue;
+                }
+            }
+            encode(str.charAt(off));
+            off += 1;
+        }
+    }
+
+
+    /**
+     * Write the JSON text of a finite double, formatted without making a
+     * String.
+     * @param v A finite double.
+     * @throws IOException
+     */
+    void writeDouble(double v) throws IOException {
+        writeASCII(this.chars, 0, DoubleFormatter.format(v, this.chars, 0));
+    }
+
+
+    /**
+     * Write the JSON text of a finite float, formatted without making a
+     * String.
+     * @param v A finite float.
+     * @throws IOException
+     */
+    void writeFloat(float v) throws IOException {
+        writeASCII(this.chars, 0, DoubleFormatter.format(v, this.chars, 0));
+    }
+
+
+    /**
+     * Write the digits of a long, formatted straight into the buffer.
+     * @param v A long.
+     * @throws IOException
+     */
+    void writeLong(long v) throws IOException {
+        settle();
+        reserve(20);
+        byte[] buffer = this.buffer;
+        if (v < 0) {
+            buffer[this.count++] = '-';
+        } else {
+            v = -v;
+        }
+
+// The digits are taken from the negative of the number, so that
+// Long.MIN_VALUE does not overflow.
+
+        int length = 1;
+        for (long rest = v / 10; rest != 0; rest /= 10) {
+            length += 1;
+        }
+        int at = this.count + length;
+        this.count = at;
+        do {
+            at -= 1;
+            buffer[at] = (byte)('0' - (v % 10));
+            v /= 10;
+        } while (v != 0);
+    }
+
+
+    /**
+     * Write a string in double quotes with backslash sequences in all the
+     * right places, as JSONObject.quote does. The escaping is done as the
+     * string is copied into the buffer.
+     * @param string A String, or null for an empty string.
+     * @throws IOException
+     */
+    void writeQuoted(String string) throws IOException {
+        char[] escape;
+        int    len = string == null ? 0 : string.length();
+
+        write('"');
+        for (int i = 0; i < len; i += 1) {
+            char c = string.charAt(i);
+            if (c < JSONObject.escapes.length) {
+                escape = JSONObject.escapes[c];
+                if (escape == null ||
+                        (c == '/' && (i == 0 || string.charAt(i - 1) != '<'))) {
+                    if (this.count == this.buffer.length) {
+                        drain();
+                    }
+                    this.buffer[this.count++] = (byte)c;
+                } else {
+                    writeASCII(escape, 0, escape.length);
+                }
+            } else if (c >= '\u2000' && c < '\u2100') {
+                reserve(6);
+                this.buffer[this.count] = '\\';
+                this.buffer[this.count + 1] = 'u';
+                this.buffer[this.count + 2] =
+                    (byte)JSONObject.hexDigits[c >>> 12];
+                this.buffer[this.count + 3] =
+                    (byte)JSONObject.hexDigits[(c >>> 8) & 0xF];
+                this.buffer[this.count + 4] =
+                    (byte)JSONObject.hexDigits[(c >>> 4) & 0xF];
+                this.buffer[this.count + 5] =
+                    (byte)JSONObject.hexDigits[c & 0xF];
+                this.count += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len &&
+                    Character.isLowSurrogate(string.charAt(i + 1))) {
+                encode(c);
+                i += 1;
+                encode(string.charAt(i));
+            } else if (Character.isSurrogate(c)) {
+                write('?');
+            } else {
+                encode(c);
+            }
+        }
+        write('"');
+    }
+}
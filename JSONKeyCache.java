@@ -0,0 +1,136 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * A JSONKeyCache holds canonical Strings for the keys of JSON objects. A
+ * JSONTokener that has a key cache looks each quoted key up by its
+ * characters, and uses the cached String instead of making a new one when
+ * the key has been seen before. Keys from a small vocabulary are then made
+ * once, share their hash codes, and can be compared by identity.
+ * <p>
+ * The cache is a bounded table with one String in each slot. A key that
+ * hashes to an occupied slot replaces the String that was there. A cache
+ * may be shared by JSONTokeners on several threads: Strings are immutable,
+ * so a race can only cost a miss.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+public class JSONKeyCache {
+
+    /**
+     * The longest key that is cached.
+     */
+    private static final int maxLength = 64;
+
+    /**
+     * The Strings, indexed by hash.
+     */
+    private final String[] strings;
+
+
+    /**
+     * Construct a JSONKeyCache with 1024 slots.
+     */
+    public JSONKeyCache() {
+        this(1024);
+    }
+
+
+    /**
+     * Construct a JSONKeyCache.
+     * @param size The number of slots. It is rounded up to a power of two
+     *  between 16 and 2^20.
+     */
+    public JSONKeyCache(int size) {
+        int length = 16;
+        while (length < size && length < (1 << 20)) {
+            length *= 2;
+        }
+        this.strings = new String[length];
+    }
+
+
+    /**
+     * Get the canonical String equal to a String, adding it to the cache
+     * if it is not there.
+     * @param string A String.
+     * @return A String equal to the argument.
+     */
+    public String intern(String string) {
+        if (string.length() > maxLength) {
+            return string;
+        }
+        int slot = slot(string.hashCode());
+        String cached = this.strings[slot];
+        if (string.equals(cached)) {
+            return cached;
+        }
+        this.strings[slot] = string;
+        return string;
+    }
+
+
+    /**
+     * Get the canonical String for a run of characters, making it and
+     * adding it to the cache if it is not there.
+     * @param chars A buffer.
+     * @param offset The index of the first character.
+     * @param length The number of characters.
+     * @return A String of the characters.
+     */
+    String get(char[] chars, int offset, int length) {
+        if (length > maxLength) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i += 1) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = slot(hash);
+        String cached = this.strings[slot];
+        if (cached != null && cached.length() == length) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == chars[offset + i]) {
+                i += 1;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+        String string = new String(chars, offset, length);
+        this.strings[slot] = string;
+        return string;
+    }
+
+
+    /**
+     * Find the slot for a hash code, which is computed as String.hashCode
+     * computes it.
+     */
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (this.strings.length - 1);
+    }
+}
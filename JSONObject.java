@@ -25,18 +25,19 @@ SOFTWARE.
 */
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A JSONObject is an unordered collection of name/value pairs. Its
@@ -86,8 +87,11 @@ import java.util.TreeSet;
  *     well as by <code>,</code> <small>(comma)</small>.</li>
  * <li>Numbers may have the <code>0x-</code> <small>(hex)</small> prefix.</li>
  * </ul>
+ * <p>
+ * A JSONObject made from a lazy JSONTokener parses its values only when they
+ * are accessed. See {@link JSONTokener#setLazy(boolean)}.
  * @author JSON.org
- * @version 2010-12-28
+ * @version 2026-10-17
  */
 public class JSONObject {
 
@@ -128,9 +132,148 @@ public class JSONObject {
 
 
     /**
-     * The map where the JSONObject's properties are kept.
+     * The escape sequences used by quote for the characters below 0xA0,
+     * or null for characters that are written as they are. The sequence for <code>/</code> is only used after
+     * <code>&lt;</code>.
+     */
+    static final char[][] escapes = new char[0xa0][];
+
+    /**
+     * A run of spaces used for indentation.
+     */
+    private static final char[] spaces = new char[64];
+
+    /**
+     * The lowercase hexadecimal digits.
+     */
+    static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+    /**
+     * The kinds of value, by how wrap and valueToString treat their classes.
+     * kindNumeric is added to the kind of a Number class that is not one of
+     * the boxed types kept by wrap.
+     */
+    private static final int kindJSONString = 1;
+    private static final int kindNumber = 2;
+    private static final int kindLiteral = 3;
+    private static final int kindString = 4;
+    private static final int kindCollection = 5;
+    private static final int kindArray = 6;
+    private static final int kindMap = 7;
+    private static final int kindPlatform = 8;
+    private static final int kindBean = 9;
+    private static final int kindNumeric = 16;
+
+    /**
+     * The kind of each class that has been asked about. Finding the kind
+     * takes a chain of tests and, for other classes, a look at the package
+     * and class loader, so it is done once per class.
+     */
+    private static final ClassValue kinds = new ClassValue() {
+        protected Object computeValue(Class klass) {
+            int kind;
+            if (JSONString.class.isAssignableFrom(klass)) {
+                kind = kindJSONString;
+            } else if (klass == Byte.class    || klass == Short.class  ||
+                    klass == Integer.class || klass == Long.class   ||
+                    klass == Float.class   || klass == Double.class) {
+                kind = kindNumber;
+            } else if (JSONObject.class.isAssignableFrom(klass) ||
+                    JSONArray.class.isAssignableFrom(klass) ||
+                    klass == Null.class || klass == Boolean.class) {
+                kind = kindLiteral;
+            } else if (klass == String.class || klass == Character.class) {
+                kind = kindString;
+            } else {
+                if (Collection.class.isAssignableFrom(klass)) {
+                    kind = kindCollection;
+                } else if (klass.isArray()) {
+                    kind = kindArray;
+                } else if (Map.class.isAssignableFrom(klass)) {
+                    kind = kindMap;
+                } else {
+                    Package objectPackage = klass.getPackage();
+                    String objectPackageName = objectPackage != null ?
+                        objectPackage.getName() : "";
+                    kind = objectPackageName.startsWith("java.") ||
+                            objectPackageName.startsWith("javax.") ||
+                            klass.getClassLoader() == null ?
+                        kindPlatform : kindBean;
+                }
+                if (Number.class.isAssignableFrom(klass)) {
+                    kind += kindNumeric;
+                }
+            }
+            return Integer.valueOf(kind);
+        }
+    };
+
+    static {
+        for (int i = 0; i < escapes.length; i += 1) {
+            if (i < ' ' || i >= 0x80) {
+                escapes[i] = new char[] {'\\', 'u', '0', '0',
+                    hexDigits[i >>> 4], hexDigits[i & 0xF]};
+            }
+        }
+        escapes['\b'] = "\\b".toCharArray();
+        escapes['\t'] = "\\t".toCharArray();
+        escapes['\n'] = "\\n".toCharArray();
+        escapes['\f'] = "\\f".toCharArray();
+        escapes['\r'] = "\\r".toCharArray();
+        escapes['"'] = "\\\"".toCharArray();
+        escapes['\\'] = "\\\\".toCharArray();
+        escapes['/'] = "\\/".toCharArray();
+        Arrays.fill(spaces, ' ');
+    }
+
+
+    /**
+     * The map where the JSONObject's properties are kept, in the order in
+     * which they were first put. It is a PersistentMap if the JSONObject is
+     * frozen, and a ConcurrentMap if it is concurrent.
+     */
+    private final Map map;
+
+
+    /**
+     * The source text of a lazily made object, if it strictly conforms to
+     * JSON and the object has not been changed since it was made. It is used
+     * as the serialization of the object.
+     */
+    private LazyValue source;
+
+
+    /**
+     * The keys in sorted order, or null if they have not been sorted since
+     * the set of keys last changed.
+     */
+    private Object[] sortedKeys;
+
+
+    /**
+     * True if the JSONObject is a frozen snapshot that cannot be changed.
+     * Its map is then a PersistentMap.
+     */
+    private final boolean frozen;
+
+
+    /**
+     * The keys of a frozen JSONObject in sorted order, or null if they are
+     * sorted each time they are needed.
      */
-    private Map map;
+    private final Object[] frozenKeys;
+
+
+    /**
+     * The hash code of a frozen JSONObject, or 0 if it has not been computed.
+     */
+    private int hash;
+
+
+    /**
+     * The JSON text of a frozen JSONObject, or null if it has not been made.
+     */
+    private String text;
 
 
     /**
@@ -146,7 +289,34 @@ public class JSONObject {
      * Construct an empty JSONObject.
      */
     public JSONObject() {
-        this.map = new HashMap();
+        this.map = new CompactMap();
+        this.frozen = false;
+        this.frozenKeys = null;
+    }
+
+
+    /**
+     * Construct a frozen JSONObject.
+     * @param map The members.
+     * @param keys The keys in sorted order, or null.
+     * @param hash The hash code of the map.
+     */
+    private JSONObject(PersistentMap map, Object[] keys, int hash) {
+        this.map = map;
+        this.frozen = true;
+        this.frozenKeys = keys;
+        this.hash = hash;
+    }
+
+
+    /**
+     * Construct a concurrent JSONObject.
+     * @param map An empty concurrent map.
+     */
+    private JSONObject(ConcurrentMap map) {
+        this.map = map;
+        this.frozen = false;
+        this.frozenKeys = null;
     }
 
 
@@ -177,53 +347,74 @@ public class JSONObject {
      *  or a duplicated key.
      */
     public JSONObject(JSONTokener x) throws JSONException {
-        this();
+        CompactMap map = new CompactMap(x.shapes());
+        this.map = map;
+        this.frozen = false;
+        this.frozenKeys = null;
+        boolean lazy = x.makeLazy();
+        boolean strict = true;
         char c;
         String key;
 
         if (x.nextClean() != '{') {
             throw x.syntaxError("A JSONObject text must begin with '{'");
         }
+        int start = lazy ? x.offset() - 1 : 0;
         for (;;) {
             c = x.nextClean();
-            switch (c) {
-            case 0:
+            if (c == 0) {
                 throw x.syntaxError("A JSONObject text must end with '}'");
-            case '}':
-                return;
-            default:
-                x.back();
-                key = x.nextValue().toString();
+            }
+            if (c == '}') {
+                break;
+            }
+            x.back();
+            int keyStart = lazy ? x.offset() : 0;
+            key = x.nextKey();
+            if (lazy) {
+                strict &= c == '"' && x.isPlain(keyStart);
             }
 
 // The key is followed by ':'. We will also tolerate '=' or '=>'.
 
             c = x.nextClean();
             if (c == '=') {
+                strict = false;
                 if (x.next() != '>') {
                     x.back();
                 }
             } else if (c != ':') {
                 throw x.syntaxError("Expected a ':' after a key");
             }
-            putOnce(key, x.nextValue());
+            if (lazy) {
+                LazyValue value = x.nextLazyValue();
+                strict &= value.strict;
+                putOnce(key, value);
+            } else {
+                putOnce(key, x.nextValue());
+            }
 
 // Pairs are separated by ','. We will also tolerate ';'.
 
-            switch (x.nextClean()) {
-            case ';':
-            case ',':
+            c = x.nextClean();
+            if (c == ';' || c == ',') {
+                strict &= c == ',';
                 if (x.nextClean() == '}') {
-                    return;
+                    strict = false;
+                    break;
                 }
                 x.back();
+            } else if (c == '}') {
                 break;
-            case '}':
-                return;
-            default:
+            } else {
                 throw x.syntaxError("Expected a ',' or '}'");
             }
         }
+        map.detach();
+        if (lazy && strict) {
+            this.source = new LazyValue(x.buffer(), start,
+                    x.offset() - start, true, null, null);
+        }
     }
 
 
@@ -235,7 +426,9 @@ public class JSONObject {
      * @throws JSONException 
      */
     public JSONObject(Map map) {
-        this.map = new HashMap();
+        this.map = new CompactMap(map == null ? 4 : map.size());
+        this.frozen = false;
+        this.frozenKeys = null;
         if (map != null) {
             Iterator i = map.entrySet().iterator();
             while (i.hasNext()) {
@@ -287,12 +480,15 @@ public class JSONObject {
      */
     public JSONObject(Object object, String names[]) {
         this();
-        Class c = object.getClass();
+        BeanProperties properties = BeanProperties.forClass(object.getClass());
         for (int i = 0; i < names.length; i += 1) {
             String name = names[i];
-            try {
-                putOpt(name, c.getField(name).get(object));
-            } catch (Exception ignore) {
+            BeanProperties.Accessor field = properties.field(name);
+            if (field != null) {
+                try {
+                    putOpt(name, field.get(object));
+                } catch (Exception ignore) {
+                }
             }
         }
     }
@@ -367,15 +563,26 @@ public class JSONObject {
     public JSONObject accumulate(String key, Object value)
             throws JSONException {
         testValidity(value);
-        Object object = opt(key);
-        if (object == null) {
-            put(key, value instanceof JSONArray ?
-                    new JSONArray().put(value) : value);
-        } else if (object instanceof JSONArray) {
-            ((JSONArray)object).put(value);
-        } else {
-            put(key, new JSONArray().put(object).put(value));
-        }
+        boolean concurrent = this.map instanceof ConcurrentMap;
+        Object  object;
+        Object  next;
+        do {
+            object = opt(key);
+            if (object == null) {
+                next = !(value instanceof JSONArray) ? value :
+                    concurrent ? new JSONArray().with(value) :
+                    new JSONArray().put(value);
+            } else if (object instanceof JSONArray) {
+                if (!concurrent) {
+                    ((JSONArray)object).put(value);
+                    return this;
+                }
+                next = ((JSONArray)object).with(value);
+            } else {
+                next = concurrent ? new JSONArray().with(object).with(value) :
+                    new JSONArray().put(object).put(value);
+            }
+        } while (!replace(key, object, next));
         return this;
     }
 
@@ -393,19 +600,44 @@ public class JSONObject {
      */
     public JSONObject append(String key, Object value) throws JSONException {
         testValidity(value);
-        Object object = opt(key);
-        if (object == null) {
-            put(key, new JSONArray().put(value));
-        } else if (object instanceof JSONArray) {
-            put(key, ((JSONArray)object).put(value));
-        } else {
-            throw new JSONException("JSONObject[" + key +
-                    "] is not a JSONArray.");
-        }
+        boolean concurrent = this.map instanceof ConcurrentMap;
+        Object  object;
+        Object  next;
+        do {
+            object = opt(key);
+            if (object == null) {
+                next = concurrent ? new JSONArray().with(value) :
+                    new JSONArray().put(value);
+            } else if (object instanceof JSONArray) {
+                next = concurrent ? ((JSONArray)object).with(value) :
+                    ((JSONArray)object).put(value);
+            } else {
+                throw new JSONException("JSONObject[" + key +
+                        "] is not a JSONArray.");
+            }
+        } while (!replace(key, object, next));
         return this;
     }
 
 
+    /**
+     * Make an empty concurrent JSONObject, which can be used by many threads
+     * at once without synchronization. Its members are kept in a
+     * ConcurrentHashMap, so reading does not lock, but the order in which
+     * keys were put is not kept. The increment, accumulate, append, and
+     * putOnce methods are atomic: they retry when another thread has
+     * changed the member between reading and replacing it. The JSONArrays
+     * made by accumulate and append are frozen and are replaced rather than
+     * changed, so a reader always sees a complete array. The text written by
+     * toString and write reflects the members that were present at some
+     * point during the writing, without blocking threads that change them.
+     * @return A new JSONObject.
+     */
+    public static JSONObject concurrent() {
+        return new JSONObject(new ConcurrentHashMap());
+    }
+
+
     /**
      * Produce a string from a double. The string "null" will be returned if
      * the number is not finite.
@@ -417,19 +649,120 @@ public class JSONObject {
             return "null";
         }
 
-// Shave off trailing zeros and decimal point, if possible.
+        return DoubleFormatter.toString(d);
+    }
 
-        String string = Double.toString(d);
-        if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && 
-        		string.indexOf('E') < 0) {
-            while (string.endsWith("0")) {
-                string = string.substring(0, string.length() - 1);
+
+    /**
+     * Determine if this JSONObject is equal to another object. Frozen
+     * JSONObjects are equal if they have the same keys with equal values,
+     * in any order. A JSONObject that can be changed is only equal to
+     * itself.
+     * @param object The object to compare with.
+     * @return true if the object is this JSONObject, or if both are frozen
+     *  and have equal members.
+     */
+    public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
+        if (!this.frozen || !(object instanceof JSONObject)) {
+            return false;
+        }
+        JSONObject jo = (JSONObject)object;
+        return jo.frozen && hashCode() == jo.hashCode() &&
+                this.map.equals(jo.map);
+    }
+
+
+    /**
+     * Make a deeply immutable snapshot of this JSONObject. The snapshot has
+     * the same members in the same order. The JSONObjects and JSONArrays
+     * within it are frozen too, and Maps, Collections, and arrays are
+     * replaced by frozen JSONObjects and JSONArrays. Other values are kept
+     * as they are, so they should be immutable.
+     * <p>
+     * A frozen JSONObject throws UnsupportedOperationException from put,
+     * remove, and the other methods that would change it. Its state is
+     * reached only through final fields, so it can be shared by threads
+     * without synchronization, even if it is published without it. Its
+     * hash code is computed when it is made, and frozen JSONObjects with
+     * equal members are equal. Its JSON text is kept once it has been made,
+     * so repeated calls to toString and write do not produce it again.
+     * <p>
+     * The with and without methods make changed versions of a frozen
+     * JSONObject that share the members they do not change with it.
+     * @return A frozen JSONObject, or this JSONObject if it is already
+     *  frozen.
+     * @throws JSONException If a lazily parsed value cannot be parsed.
+     */
+    public JSONObject freeze() throws JSONException {
+        if (this.frozen) {
+            return this;
+        }
+        if (this.map instanceof ConcurrentMap) {
+            return new JSONObject(this.map).freeze();
+        }
+        Object[] keys = this.map.keySet().toArray();
+        Object[] values = new Object[keys.length];
+        for (int i = 0; i < keys.length; i += 1) {
+            Object value = this.map.get(keys[i]);
+            if (value instanceof LazyValue) {
+                value = ((LazyValue)value).decode();
             }
-            if (string.endsWith(".")) {
-                string = string.substring(0, string.length() - 1);
+            values[i] = freezeValue(value);
+        }
+        PersistentMap map = PersistentMap.of(keys, values);
+        Arrays.sort(keys);
+        return new JSONObject(map, keys, map.hashCode());
+    }
+
+
+    /**
+     * Freeze a value that is to be held by a frozen JSONObject or JSONArray.
+     * @param value A value.
+     * @return A frozen JSONObject or JSONArray, or the value itself if it
+     *  is not a JSONObject, JSONArray, Map, Collection, or array.
+     * @throws JSONException If a lazily parsed value cannot be parsed.
+     */
+    static Object freezeValue(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return ((JSONObject)value).freeze();
+        }
+        if (value instanceof JSONArray) {
+            return ((JSONArray)value).freeze();
+        }
+        if (value instanceof Map) {
+            return new JSONObject((Map)value).freeze();
+        }
+        if (value instanceof Collection) {
+            return new JSONArray((Collection)value).freeze();
+        }
+        if (value != null && value.getClass().isArray()) {
+            return new JSONArray(value).freeze();
+        }
+        return value;
+    }
+
+
+    /**
+     * Get the JSON text of a frozen JSONObject, making it the first time.
+     * @return The text.
+     * @throws JSONException If the object contains an invalid number.
+     */
+    private String frozenText() throws JSONException {
+        String text = this.text;
+        if (text == null) {
+            StringWriter sw = new StringWriter();
+            try {
+                writeMembers(sw, false);
+            } catch (IOException e) {
+                throw new JSONException(e);
             }
+            text = sw.toString();
+            this.text = text;
         }
-        return string;
+        return text;
     }
 
 
@@ -444,11 +777,33 @@ public class JSONObject {
         if (key == null) {
             throw new JSONException("Null key.");
         }
-        Object object = opt(key);
+        Object object = this.map.get(key);
         if (object == null) {
             throw new JSONException("JSONObject[" + quote(key) +
                     "] not found.");
         }
+        if (object instanceof LazyValue) {
+            object = decode(key, (LazyValue)object);
+        }
+        return object;
+    }
+
+
+    /**
+     * Parse a lazy value and keep the result in place of it. Once a nested
+     * object or array has been handed out it might be changed, so the
+     * source text can no longer be used as the serialization.
+     * @param key   A key string.
+     * @param value The lazy value associated with the key.
+     * @return      The parsed value.
+     * @throws      JSONException If the value cannot be parsed.
+     */
+    private Object decode(String key, LazyValue value) throws JSONException {
+        Object object = value.decode();
+        this.map.put(key, object);
+        if (object instanceof JSONObject || object instanceof JSONArray) {
+            this.source = null;
+        }
         return object;
     }
 
@@ -632,6 +987,24 @@ public class JSONObject {
     }
 
 
+    /**
+     * Get the hash code. The hash code of a frozen JSONObject is computed
+     * from its members when it is frozen.
+     * @return The hash code.
+     */
+    public int hashCode() {
+        if (!this.frozen) {
+            return super.hashCode();
+        }
+        int hash = this.hash;
+        if (hash == 0) {
+            hash = this.map.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+
     /**
      * Determine if the JSONObject contains a specific key.
      * @param key   A key string.
@@ -652,20 +1025,25 @@ public class JSONObject {
      * that is not an Integer, Long, Double, or Float.
      */
     public JSONObject increment(String key) throws JSONException {
-        Object value = opt(key);
-        if (value == null) {
-            put(key, 1);
-        } else if (value instanceof Integer) {
-            put(key, ((Integer)value).intValue() + 1);
-        } else if (value instanceof Long) {
-            put(key, ((Long)value).longValue() + 1);                
-        } else if (value instanceof Double) {
-            put(key, ((Double)value).doubleValue() + 1);                
-        } else if (value instanceof Float) {
-            put(key, ((Float)value).floatValue() + 1);                
-        } else {
-            throw new JSONException("Unable to increment [" + quote(key) + "].");
-        }
+        Object value;
+        Object next;
+        do {
+            value = opt(key);
+            if (value == null) {
+                next = Integer.valueOf(1);
+            } else if (value instanceof Integer) {
+                next = Integer.valueOf(((Integer)value).intValue() + 1);
+            } else if (value instanceof Long) {
+                next = Long.valueOf(((Long)value).longValue() + 1);
+            } else if (value instanceof Double) {
+                next = Double.valueOf(((Double)value).doubleValue() + 1);
+            } else if (value instanceof Float) {
+                next = Double.valueOf(((Float)value).floatValue() + 1);
+            } else {
+                throw new JSONException("Unable to increment [" +
+                        quote(key) + "].");
+            }
+        } while (!replace(key, value, next));
         return this;
     }
 
@@ -683,12 +1061,29 @@ public class JSONObject {
 
 
     /**
-     * Get an enumeration of the keys of the JSONObject.
+     * Get an enumeration of the keys of the JSONObject, in the order in
+     * which they were first put. The keys of a concurrent JSONObject are
+     * in no particular order.
      *
      * @return An iterator of the keys.
      */
     public Iterator keys() {
-        return this.map.keySet().iterator();
+        final Iterator keys = this.map.keySet().iterator();
+        return new Iterator() {
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            public Object next() {
+                return keys.next();
+            }
+
+            public void remove() {
+                keys.remove();
+                JSONObject.this.source = null;
+                JSONObject.this.sortedKeys = null;
+            }
+        };
     }
 
 
@@ -729,6 +1124,12 @@ public class JSONObject {
             throw new JSONException("Null pointer");
         }
         testValidity(number);
+        if (number instanceof Double) {
+            return DoubleFormatter.toString(number.doubleValue());
+        }
+        if (number instanceof Float) {
+            return DoubleFormatter.toString(number.floatValue());
+        }
 
 // Shave off trailing zeros and decimal point, if possible.
 
@@ -752,7 +1153,18 @@ public class JSONObject {
      * @return      An object which is the value, or null if there is no value.
      */
     public Object opt(String key) {
-        return key == null ? null : this.map.get(key);
+        if (key == null) {
+            return null;
+        }
+        Object object = this.map.get(key);
+        if (object instanceof LazyValue) {
+            try {
+                object = decode(key, (LazyValue)object);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return object;
     }
 
 
@@ -942,45 +1354,12 @@ public class JSONObject {
 
 
     private void populateMap(Object bean) {
-        Class klass = bean.getClass();
-
-// If klass is a System class then set includeSuperClass to false. 
-
-        boolean includeSuperClass = klass.getClassLoader() != null;
-
-        Method[] methods = (includeSuperClass) ?
-                klass.getMethods() : klass.getDeclaredMethods();
-        for (int i = 0; i < methods.length; i += 1) {
+        BeanProperties properties = BeanProperties.forClass(bean.getClass());
+        for (int i = 0; i < properties.getters.length; i += 1) {
             try {
-                Method method = methods[i];
-                if (Modifier.isPublic(method.getModifiers())) {
-                    String name = method.getName();
-                    String key = "";
-                    if (name.startsWith("get")) {
-                        if (name.equals("getClass") || 
-                                name.equals("getDeclaringClass")) {
-                            key = "";
-                        } else {
-                            key = name.substring(3);
-                        }
-                    } else if (name.startsWith("is")) {
-                        key = name.substring(2);
-                    }
-                    if (key.length() > 0 &&
-                            Character.isUpperCase(key.charAt(0)) &&
-                            method.getParameterTypes().length == 0) {
-                        if (key.length() == 1) {
-                            key = key.toLowerCase();
-                        } else if (!Character.isUpperCase(key.charAt(1))) {
-                            key = key.substring(0, 1).toLowerCase() +
-                                key.substring(1);
-                        }
-
-                        Object result = method.invoke(bean, (Object[])null);
-                        if (result != null) {
-                            map.put(key, wrap(result));
-                        }
-                    }
+                Object result = properties.getters[i].get(bean);
+                if (result != null) {
+                    this.map.put(properties.keys[i], wrap(result));
                 }
             } catch (Exception ignore) {
             }
@@ -1087,9 +1466,15 @@ public class JSONObject {
         if (key == null) {
             throw new JSONException("Null key.");
         }
+        if (this.frozen) {
+            throw new UnsupportedOperationException("JSONObject is frozen.");
+        }
         if (value != null) {
             testValidity(value);
-            this.map.put(key, value);
+            if (this.map.put(key, value) == null) {
+                this.sortedKeys = null;
+            }
+            this.source = null;
         } else {
             remove(key);
         }
@@ -1108,10 +1493,9 @@ public class JSONObject {
      */
     public JSONObject putOnce(String key, Object value) throws JSONException {
         if (key != null && value != null) {
-            if (opt(key) != null) {
+            if (opt(key) != null || !replace(key, null, value)) {
                 throw new JSONException("Duplicate key \"" + key + "\"");
             }
-            put(key, value);
         }
         return this;
     }
@@ -1144,60 +1528,70 @@ public class JSONObject {
      * @return  A String correctly formatted for insertion in a JSON text.
      */
     public static String quote(String string) {
+        StringWriter sw = new StringWriter();
+        try {
+            return quote(string, sw).toString();
+        } catch (IOException ignored) {
+            // will never happen - we are writing to a string writer
+            return "";
+        }
+    }
+
+
+    /**
+     * Write a string in double quotes with backslash sequences in all the
+     * right places, as quote(String) does. Runs of characters that need no
+     * escaping are written in one piece.
+     * @param string A String
+     * @param w A writer.
+     * @return The writer.
+     * @throws IOException
+     */
+    public static Writer quote(String string, Writer w) throws IOException {
+        if (w instanceof JSONByteWriter) {
+            ((JSONByteWriter)w).writeQuoted(string);
+            return w;
+        }
         if (string == null || string.length() == 0) {
-            return "\"\"";
+            w.write("\"\"");
+            return w;
         }
 
-        char         b;
-        char         c = 0;
-        String       hhhh;
-        int          i;
-        int          len = string.length();
-        StringBuffer sb = new StringBuffer(len + 4);
+        char   c;
+        char[] escape;
+        int    i;
+        int    len = string.length();
+        int    run = 0;
 
-        sb.append('"');
+        w.write('"');
         for (i = 0; i < len; i += 1) {
-            b = c;
             c = string.charAt(i);
-            switch (c) {
-            case '\\':
-            case '"':
-                sb.append('\\');
-                sb.append(c);
-                break;
-            case '/':
-                if (b == '<') {
-                    sb.append('\\');
-                }
-                sb.append(c);
-                break;
-            case '\b':
-                sb.append("\\b");
-                break;
-            case '\t':
-                sb.append("\\t");
-                break;
-            case '\n':
-                sb.append("\\n");
-                break;
-            case '\f':
-                sb.append("\\f");
-                break;
-            case '\r':
-                sb.append("\\r");
-                break;
-            default:
-                if (c < ' ' || (c >= '\u0080' && c < '\u00a0') ||
-                               (c >= '\u2000' && c < '\u2100')) {
-                    hhhh = "000" + Integer.toHexString(c);
-                    sb.append("\\u" + hhhh.substring(hhhh.length() - 4));
-                } else {
-                    sb.append(c);
+            if (c < escapes.length) {
+                escape = escapes[c];
+                if (escape == null ||
+                        (c == '/' && (i == 0 || string.charAt(i - 1) != '<'))) {
+                    continue;
                 }
+            } else if (c >= '\u2000' && c < '\u2100') {
+                escape = null;
+            } else {
+                continue;
             }
+            w.write(string, run, i - run);
+            if (escape != null) {
+                w.write(escape);
+            } else {
+                w.write("\\u");
+                w.write(hexDigits[c >>> 12]);
+                w.write(hexDigits[(c >>> 8) & 0xF]);
+                w.write(hexDigits[(c >>> 4) & 0xF]);
+                w.write(hexDigits[c & 0xF]);
+            }
+            run = i + 1;
         }
-        sb.append('"');
-        return sb.toString();
+        w.write(string, run, len - run);
+        w.write('"');
+        return w;
     }
 
     /**
@@ -1207,9 +1601,44 @@ public class JSONObject {
      * or null if there was no value.
      */
     public Object remove(String key) {
-        return this.map.remove(key);
+        if (this.frozen) {
+            throw new UnsupportedOperationException("JSONObject is frozen.");
+        }
+        Object object = opt(key);
+        this.map.remove(key);
+        this.source = null;
+        this.sortedKeys = null;
+        return object;
     }
 
+    /**
+     * Put a value in place of the value that was read for a key. In a
+     * concurrent JSONObject the value is only put if the key still has the
+     * value that was read, and the check and the put are atomic.
+     * @param key   A key string.
+     * @param previous The value that was read, or null if there was none.
+     * @param value The value to put.
+     * @return true if the value was put, false if another thread changed
+     *  the member first.
+     * @throws JSONException If the value is non-finite number
+     *  or if the key is null.
+     */
+    private boolean replace(String key, Object previous, Object value)
+            throws JSONException {
+        if (!(this.map instanceof ConcurrentMap)) {
+            put(key, value);
+            return true;
+        }
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+        testValidity(value);
+        ConcurrentMap map = (ConcurrentMap)this.map;
+        return previous == null ? map.putIfAbsent(key, value) == null :
+            map.replace(key, previous, value);
+    }
+
+
     /**
      * Get an enumeration of the keys of the JSONObject.
      * The keys will be sorted alphabetically.
@@ -1217,7 +1646,34 @@ public class JSONObject {
      * @return An iterator of the keys.
      */
     public Iterator sortedKeys() {
-      return new TreeSet(this.map.keySet()).iterator();
+      return Arrays.asList(sortedKeyArray()).iterator();
+    }
+
+
+    /**
+     * Get the keys in sorted order. The sorted array is kept until the set
+     * of keys changes. The keys of a frozen JSONObject were sorted when it
+     * was frozen, unless it was made by with or without. The keys of a
+     * concurrent JSONObject are sorted each time.
+     * @return An array of the keys that must not be modified.
+     */
+    private Object[] sortedKeyArray() {
+        Object[] keys;
+        if (this.frozen || this.map instanceof ConcurrentMap) {
+            keys = this.frozenKeys;
+            if (keys == null) {
+                keys = this.map.keySet().toArray();
+                Arrays.sort(keys);
+            }
+            return keys;
+        }
+        keys = this.sortedKeys;
+        if (keys == null || keys.length != this.map.size()) {
+            keys = this.map.keySet().toArray();
+            Arrays.sort(keys);
+            this.sortedKeys = keys;
+        }
+        return keys;
     }
 
     /**
@@ -1251,26 +1707,9 @@ public class JSONObject {
 
         char b = string.charAt(0);
         if ((b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+') {
-            if (b == '0' && string.length() > 2 &&
-                        (string.charAt(1) == 'x' || string.charAt(1) == 'X')) {
-                try {
-                    return new Integer(Integer.parseInt(string.substring(2), 16));
-                } catch (Exception ignore) {
-                }
-            }
-            try {
-                if (string.indexOf('.') > -1 || 
-                        string.indexOf('e') > -1 || string.indexOf('E') > -1) {
-                    return Double.valueOf(string);
-                } else {
-                    Long myLong = new Long(string);
-                    if (myLong.longValue() == myLong.intValue()) {
-                        return new Integer(myLong.intValue());
-                    } else {
-                        return myLong;
-                    }
-                }
-            }  catch (Exception ignore) {
+            Number number = JSONTokener.stringToNumber(string);
+            if (number != null) {
+                return number;
             }
         }
         return string;
@@ -1331,21 +1770,14 @@ public class JSONObject {
      *  with <code>}</code>&nbsp;<small>(right brace)</small>.
      */
     public String toString() {
+        if (this.source != null) {
+            return this.source.toString();
+        }
         try {
-            Iterator     keys = keys();
-            StringBuffer sb = new StringBuffer("{");
-
-            while (keys.hasNext()) {
-                if (sb.length() > 1) {
-                    sb.append(',');
-                }
-                Object o = keys.next();
-                sb.append(quote(o.toString()));
-                sb.append(':');
-                sb.append(valueToString(this.map.get(o)));
+            if (this.frozen) {
+                return frozenText();
             }
-            sb.append('}');
-            return sb.toString();
+            return this.write(new StringWriter()).toString();
         } catch (Exception e) {
             return null;
         }
@@ -1383,46 +1815,7 @@ public class JSONObject {
      * @throws JSONException If the object contains an invalid number.
      */
     String toString(int indentFactor, int indent) throws JSONException {
-        int i;
-        int length = this.length();
-        if (length == 0) {
-            return "{}";
-        }
-        Iterator     keys = sortedKeys();
-        int          newindent = indent + indentFactor;
-        Object       object;
-        StringBuffer sb = new StringBuffer("{");
-        if (length == 1) {
-            object = keys.next();
-            sb.append(quote(object.toString()));
-            sb.append(": ");
-            sb.append(valueToString(this.map.get(object), indentFactor,
-                    indent));
-        } else {
-            while (keys.hasNext()) {
-                object = keys.next();
-                if (sb.length() > 1) {
-                    sb.append(",\n");
-                } else {
-                    sb.append('\n');
-                }
-                for (i = 0; i < newindent; i += 1) {
-                    sb.append(' ');
-                }
-                sb.append(quote(object.toString()));
-                sb.append(": ");
-                sb.append(valueToString(this.map.get(object), indentFactor,
-                        newindent));
-            }
-            if (sb.length() > 1) {
-                sb.append('\n');
-                for (i = 0; i < indent; i += 1) {
-                    sb.append(' ');
-                }
-            }
-        }
-        sb.append('}');
-        return sb.toString();
+        return this.write(new StringWriter(), indentFactor, indent).toString();
     }
 
 
@@ -1451,7 +1844,8 @@ public class JSONObject {
         if (value == null || value.equals(null)) {
             return "null";
         }
-        if (value instanceof JSONString) {
+        int kind = kind(value);
+        if (kind == kindJSONString) {
             Object object;
             try {
                 object = ((JSONString)value).toJSONString();
@@ -1463,77 +1857,45 @@ public class JSONObject {
             }
             throw new JSONException("Bad value from toJSONString: " + object);
         }
-        if (value instanceof Number) {
+        if (kind == kindNumber || (kind & kindNumeric) != 0) {
             return numberToString((Number) value);
         }
-        if (value instanceof Boolean || value instanceof JSONObject ||
-                value instanceof JSONArray) {
+        switch (kind) {
+        case kindLiteral:
             return value.toString();
-        }
-        if (value instanceof Map) {
+        case kindMap:
             return new JSONObject((Map)value).toString();
-        }
-        if (value instanceof Collection) {
+        case kindCollection:
             return new JSONArray((Collection)value).toString();
-        }
-        if (value.getClass().isArray()) {
+        case kindArray:
             return new JSONArray(value).toString();
+        default:
+            return quote(value.toString());
         }
-        return quote(value.toString());
     }
 
 
-    /**
-     * Make a prettyprinted JSON text of an object value.
-     * <p>
-     * Warning: This method assumes that the data structure is acyclical.
-     * @param value The value to be serialized.
-     * @param indentFactor The number of spaces to add to each level of
-     *  indentation.
-     * @param indent The indentation of the top level.
-     * @return a printable, displayable, transmittable
-     *  representation of the object, beginning
-     *  with <code>{</code>&nbsp;<small>(left brace)</small> and ending
-     *  with <code>}</code>&nbsp;<small>(right brace)</small>.
-     * @throws JSONException If the object contains an invalid number.
-     */
-     static String valueToString(Object value, int indentFactor, int indent)
-            throws JSONException {
-        if (value == null || value.equals(null)) {
-            return "null";
-        }
-        try {
-            if (value instanceof JSONString) {
-                Object o = ((JSONString)value).toJSONString();
-                if (o instanceof String) {
-                    return (String)o;
-                }
-            }
-        } catch (Exception ignore) {
-        }
-        if (value instanceof Number) {
-            return numberToString((Number) value);
-        }
-        if (value instanceof Boolean) {
-            return value.toString();
-        }
-        if (value instanceof JSONObject) {
-            return ((JSONObject)value).toString(indentFactor, indent);
-        }
-        if (value instanceof JSONArray) {
-            return ((JSONArray)value).toString(indentFactor, indent);
-        }
-        if (value instanceof Map) {
-            return new JSONObject((Map)value).toString(indentFactor, indent);
-        }
-        if (value instanceof Collection) {
-            return new JSONArray((Collection)value).toString(indentFactor, indent);
-        }
-        if (value.getClass().isArray()) {
-            return new JSONArray(value).toString(indentFactor, indent);
-        }
-        return quote(value.toString());
-    }
+     /**
+      * Determine if wrap would make a JSONObject from the getters of an
+      * object, because it is not a JSON value, a Map, a Collection, or an
+      * array, and its class is not a Java platform class.
+      * @param object An object that is not null.
+      * @return true if the object is a bean.
+      */
+     static boolean isBean(Object object) {
+         return (kind(object) & ~kindNumeric) == kindBean;
+     }
+
+
+     /**
+      * Get the kind of an object from the kind of its class, finding that
+      * the first time.
+      * @param object An object that is not null.
+      * @return The kind.
+      */
+     private static int kind(Object object) {
+         return ((Integer)kinds.get(object.getClass())).intValue();
+     }
 
 
      /**
@@ -1553,31 +1915,19 @@ public class JSONObject {
              if (object == null) {
                  return NULL;
              }
-             if (object instanceof JSONObject || object instanceof JSONArray  || 
-                     NULL.equals(object)      || object instanceof JSONString || 
-                     object instanceof Byte   || object instanceof Character  ||
-                     object instanceof Short  || object instanceof Integer    ||
-                     object instanceof Long   || object instanceof Boolean    || 
-                     object instanceof Float  || object instanceof Double     ||
-                     object instanceof String) {
-                 return object;
-             }
-             
-             if (object instanceof Collection) {
+             switch (kind(object) & ~kindNumeric) {
+             case kindCollection:
                  return new JSONArray((Collection)object);
-             }
-             if (object.getClass().isArray()) {
+             case kindArray:
                  return new JSONArray(object);
-             }
-             if (object instanceof Map) {
+             case kindMap:
                  return new JSONObject((Map)object);
-             }
-             Package objectPackage = object.getClass().getPackage();
-             String objectPackageName = ( objectPackage != null ? objectPackage.getName() : "" );
-             if (objectPackageName.startsWith("java.") ||
-                     objectPackageName.startsWith("javax.") ||
-                     object.getClass().getClassLoader() == null) {
+             case kindPlatform:
                  return object.toString();
+             case kindBean:
+                 break;
+             default:
+                 return object;
              }
              return new JSONObject(object);
          } catch(Exception exception) {
@@ -1586,6 +1936,294 @@ public class JSONObject {
      }
 
      
+    /**
+     * Make a frozen version of this JSONObject with a member put. The new
+     * version shares all of the members that it does not change with the
+     * frozen version of this one, so it takes time and memory proportional
+     * to the logarithm of the number of members. This JSONObject is frozen
+     * first if it is not already frozen. A new key is put after the others.
+     * @param key   A key string.
+     * @param value An object which is the value. If it is null, the key is
+     *  removed. JSONObjects, JSONArrays, Maps, Collections, and arrays are
+     *  frozen.
+     * @return A frozen JSONObject.
+     * @throws JSONException If the value is non-finite number
+     *  or if the key is null.
+     */
+    public JSONObject with(String key, Object value) throws JSONException {
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+        if (value == null) {
+            return without(key);
+        }
+        testValidity(value);
+        JSONObject    jo = freeze();
+        PersistentMap map = (PersistentMap)jo.map;
+        Object        previous = map.get(key);
+        value = freezeValue(value);
+        int hash = jo.hashCode() + (key.hashCode() ^ value.hashCode());
+        if (previous == null) {
+            return new JSONObject(map.with(key, value), null, hash);
+        }
+        hash -= key.hashCode() ^ previous.hashCode();
+        return new JSONObject(map.with(key, value), jo.frozenKeys, hash);
+    }
+
+
+    /**
+     * Make a frozen version of this JSONObject without a member. As with
+     * the with method, the new version shares the other members.
+     * @param key The name to be removed.
+     * @return A frozen JSONObject.
+     * @throws JSONException If the key is null.
+     */
+    public JSONObject without(String key) throws JSONException {
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+        JSONObject    jo = freeze();
+        PersistentMap map = (PersistentMap)jo.map;
+        Object        previous = map.get(key);
+        if (previous == null) {
+            return jo;
+        }
+        return new JSONObject(map.without(key), null,
+                jo.hashCode() - (key.hashCode() ^ previous.hashCode()));
+    }
+
+
+     /**
+      * Write a bean as JSON text to a writer. The text is the same as that of
+      * <code>new JSONObject(bean).toString()</code>, but no JSONObject is
+      * made. Each class of bean is given a serializer the first time, which
+      * holds the quoted keys of its properties and writes each value
+      * according to the type its getter returns. Beans within the bean are
+      * written the same way.
+      * @param writer A writer.
+      * @param bean An object that has getter methods.
+      * @return The writer.
+      * @throws JSONException If a value is or contains an invalid number.
+      */
+     public static Writer writeBean(Writer writer, Object bean)
+             throws JSONException {
+        try {
+            BeanProperties.forClass(bean.getClass()).write(bean, writer);
+            return writer;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+     }
+
+
+     /**
+      * Write a value as JSON text to a writer. Doubles and floats are
+      * formatted directly into the writer.
+      * @param writer A writer.
+      * @param value A value.
+      * @param sortKeys True if the keys of objects are to be sorted. Maps,
+      *  collections, and arrays are then written as sorted JSONObjects and
+      *  JSONArrays.
+      * @throws JSONException If the value is or contains an invalid number.
+      * @throws IOException
+      */
+     static void writeValue(Writer writer, Object value, boolean sortKeys)
+             throws JSONException, IOException {
+        if (value instanceof JSONObject) {
+            ((JSONObject)value).writeMembers(writer, sortKeys);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray)value).writeElements(writer, sortKeys);
+        } else if (value instanceof Double) {
+            testValidity(value);
+            DoubleFormatter.write(((Double)value).doubleValue(), writer);
+        } else if (value instanceof Float) {
+            testValidity(value);
+            DoubleFormatter.write(((Float)value).floatValue(), writer);
+        } else if (value instanceof String) {
+            quote((String)value, writer);
+        } else if (writer instanceof JSONByteWriter &&
+                (value instanceof Integer || value instanceof Long)) {
+            ((JSONByteWriter)writer).writeLong(((Number)value).longValue());
+        } else if (sortKeys && value instanceof Map) {
+            new JSONObject((Map)value).write(writer, true);
+        } else if (sortKeys && value instanceof Collection) {
+            new JSONArray((Collection)value).write(writer, true);
+        } else if (sortKeys && value != null && value.getClass().isArray()) {
+            new JSONArray(value).write(writer, true);
+        } else {
+            writer.write(valueToString(value));
+        }
+     }
+
+
+     /**
+      * Write a value as prettyprinted JSON text to a writer. Maps,
+      * collections, and arrays are written as JSONObjects and JSONArrays.
+      * Other values are written as by valueToString.
+      * @param writer A writer.
+      * @param value A value.
+      * @param indentFactor The number of spaces to add to each level of
+      *  indentation.
+      * @param indent The indentation of the value.
+      * @param sortKeys True if the keys of objects are to be sorted.
+      * @throws JSONException If the value is or contains an invalid number.
+      * @throws IOException
+      */
+     static void writeValue(Writer writer, Object value, int indentFactor,
+             int indent, boolean sortKeys) throws JSONException, IOException {
+        if (value == null || value.equals(null)) {
+            writer.write("null");
+            return;
+        }
+        try {
+            if (value instanceof JSONString) {
+                Object o = ((JSONString)value).toJSONString();
+                if (o instanceof String) {
+                    writer.write((String)o);
+                    return;
+                }
+            }
+        } catch (Exception ignore) {
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            writeValue(writer, value, false);
+        } else if (value instanceof JSONObject) {
+            ((JSONObject)value).write(writer, indentFactor, indent, sortKeys);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray)value).write(writer, indentFactor, indent, sortKeys);
+        } else if (value instanceof Map) {
+            new JSONObject((Map)value).write(writer, indentFactor, indent,
+                    sortKeys);
+        } else if (value instanceof Collection) {
+            new JSONArray((Collection)value).write(writer, indentFactor,
+                    indent, sortKeys);
+        } else if (value.getClass().isArray()) {
+            new JSONArray(value).write(writer, indentFactor, indent, sortKeys);
+        } else {
+            quote(value.toString(), writer);
+        }
+     }
+
+
+     /**
+      * Write a number of spaces to a writer.
+      * @param writer A writer.
+      * @param indent The number of spaces.
+      * @throws IOException
+      */
+     static void indent(Writer writer, int indent) throws IOException {
+        while (indent > spaces.length) {
+            writer.write(spaces);
+            indent -= spaces.length;
+        }
+        if (indent > 0) {
+            writer.write(spaces, 0, indent);
+        }
+     }
+
+
+     /**
+      * Write the contents of the JSONObject as prettyprinted JSON text to a
+      * writer, with the keys sorted. The text is the same as that made by
+      * toString(indentFactor), but it is not collected in a String first.
+      * <p>
+      * Warning: This method assumes that the data structure is acyclical.
+      * @param writer A writer.
+      * @param indentFactor The number of spaces to add to each level of
+      *  indentation.
+      * @param indent The indentation of the top level.
+      * @return The writer.
+      * @throws JSONException If the object contains an invalid number.
+      */
+     public Writer write(Writer writer, int indentFactor, int indent)
+             throws JSONException {
+        return this.write(writer, indentFactor, indent, true);
+     }
+
+
+     /**
+      * Write the contents of the JSONObject as prettyprinted JSON text to a
+      * writer.
+      * <p>
+      * Warning: This method assumes that the data structure is acyclical.
+      * @param writer A writer.
+      * @param indentFactor The number of spaces to add to each level of
+      *  indentation.
+      * @param indent The indentation of the top level.
+      * @param sortKeys True if the keys of this object and of the objects
+      *  within it are to be written in sorted order, false if they are to
+      *  be written in the order of keys().
+      * @return The writer.
+      * @throws JSONException If the object contains an invalid number.
+      */
+     public Writer write(Writer writer, int indentFactor, int indent,
+             boolean sortKeys) throws JSONException {
+        if (this.map instanceof ConcurrentMap) {
+            return new JSONObject(this.map).write(writer, indentFactor,
+                    indent, sortKeys);
+        }
+        try {
+            int length = this.length();
+            if (length == 0) {
+                writer.write("{}");
+                return writer;
+            }
+            Iterator keys = sortKeys ? sortedKeys() : keys();
+            int      newindent = indent + indentFactor;
+            String   key;
+            writer.write('{');
+            if (length == 1) {
+                key = keys.next().toString();
+                quote(key, writer);
+                writer.write(": ");
+                writeValue(writer, opt(key), indentFactor, indent, sortKeys);
+            } else {
+                boolean commanate = false;
+                while (keys.hasNext()) {
+                    key = keys.next().toString();
+                    writer.write(commanate ? ",\n" : "\n");
+                    indent(writer, newindent);
+                    quote(key, writer);
+                    writer.write(": ");
+                    writeValue(writer, opt(key), indentFactor, newindent,
+                            sortKeys);
+                    commanate = true;
+                }
+                writer.write('\n');
+                indent(writer, indent);
+            }
+            writer.write('}');
+            return writer;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        }
+     }
+
+
+     /**
+      * Write the contents of the JSONObject as UTF-8 JSON text into direct
+      * buffers taken from a pool. For compactness, no whitespace is added.
+      * <p>
+      * Warning: This method assumes that the data structure is acyclical.
+      * @param pool A pool of direct buffers.
+      * @return The buffers, flipped so that they are ready to be written to a
+      *  channel. They should be given back to the pool when they have been.
+      *  If the writing fails, the buffers already taken are given back.
+      * @throws JSONException
+      */
+     public ByteBuffer[] write(JSONBufferPool pool) throws JSONException {
+        JSONByteWriter writer = pool.acquireWriter();
+        try {
+            this.write(writer, false);
+            return writer.toBuffers();
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        } finally {
+            pool.releaseWriter(writer);
+        }
+     }
+
+
      /**
       * Write the contents of the JSONObject as JSON text to a writer.
       * For compactness, no whitespace is added.
@@ -1596,32 +2234,89 @@ public class JSONObject {
       * @throws JSONException
       */
      public Writer write(Writer writer) throws JSONException {
-        try {
-            boolean  commanate = false;
-            Iterator keys = keys();
-            writer.write('{');
+        return this.write(writer, false);
+     }
 
-            while (keys.hasNext()) {
-                if (commanate) {
-                    writer.write(',');
-                }
-                Object key = keys.next();
-                writer.write(quote(key.toString()));
-                writer.write(':');
-                Object value = this.map.get(key);
-                if (value instanceof JSONObject) {
-                    ((JSONObject)value).write(writer);
-                } else if (value instanceof JSONArray) {
-                    ((JSONArray)value).write(writer);
-                } else {
-                    writer.write(valueToString(value));
-                }
-                commanate = true;
+
+     /**
+      * Write the contents of the JSONObject as JSON text to a writer.
+      * For compactness, no whitespace is added. If the keys are sorted, the
+      * text is canonical: two JSONObjects with the same contents produce
+      * the same text regardless of the order in which their keys were put.
+      * <p>
+      * Warning: This method assumes that the data structure is acyclical.
+      * @param writer A writer.
+      * @param sortKeys True if the keys of this object and of the objects
+      *  within it are to be written in sorted order.
+      * @return The writer.
+      * @throws JSONException If the object contains an invalid number.
+      */
+     public Writer write(Writer writer, boolean sortKeys)
+             throws JSONException {
+        try {
+            if (this.frozen && !sortKeys) {
+                writer.write(frozenText());
+            } else {
+                writeMembers(writer, sortKeys);
             }
-            writer.write('}');
             return writer;
         } catch (IOException exception) {
             throw new JSONException(exception);
         }
      }
-}
\ No newline at end of file
+
+
+     /**
+      * Write the members of the JSONObject as compact JSON text. The text of
+      * a frozen JSONObject is used if it has already been made, but it is
+      * not kept if it has not, so that objects within a frozen value that
+      * is written do not each keep a copy of their text.
+      * @param writer A writer.
+      * @param sortKeys True if the keys are to be written in sorted order.
+      * @throws JSONException If the object contains an invalid number.
+      * @throws IOException
+      */
+     void writeMembers(Writer writer, boolean sortKeys)
+             throws JSONException, IOException {
+        String text = this.text;
+        if (text != null && !sortKeys) {
+            writer.write(text);
+            return;
+        }
+        if (this.source != null && !sortKeys) {
+            writer.write(this.source.chars, this.source.offset,
+                    this.source.length);
+            return;
+        }
+        boolean  commanate = false;
+        Object[] sorted = sortKeys ? sortedKeyArray() : null;
+        Iterator keys = sortKeys ? null : keys();
+        int      i = 0;
+        writer.write('{');
+
+        while (sortKeys ? i < sorted.length : keys.hasNext()) {
+            Object key = sortKeys ? sorted[i++] : keys.next();
+            Object value = this.map.get(key);
+            if (value == null) {
+                continue;
+            }
+            if (commanate) {
+                writer.write(',');
+            }
+            quote(key.toString(), writer);
+            writer.write(':');
+            if (value instanceof LazyValue) {
+                LazyValue lazy = (LazyValue)value;
+                if (lazy.strict && !(sortKeys && lazy.isStructure())) {
+                    writer.write(lazy.chars, lazy.offset, lazy.length);
+                    commanate = true;
+                    continue;
+                }
+                value = get(key.toString());
+            }
+            writeValue(writer, value, sortKeys);
+            commanate = true;
+        }
+        writer.write('}');
+     }
+}
@@ -0,0 +1,431 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * A JSONReader reads a JSON text one token at a time. It is a pull parser
+ * built on a JSONTokener: each call to <code>next</code> returns the type of
+ * the next token, and <code>getValue</code> returns the key or scalar value
+ * of the current token. Unlike the JSONObject and JSONArray constructors, it
+ * does not build a tree, so the memory it needs is bounded by the depth of
+ * nesting rather than by the size of the text. For example, <pre>
+ * JSONReader reader = new JSONReader(new JSONTokener(myReader));
+ * reader.next();                               // START_ARRAY
+ * while (reader.next() == JSONReader.START_OBJECT) {
+ *     JSONObject record = reader.readJSONObject();
+ *     ...
+ * }</pre>
+ * <p>
+ * The reader accepts the same forgiving syntax as the JSONObject and
+ * JSONArray constructors.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+public class JSONReader {
+
+    /**
+     * The token type of the beginning of an object: <code>{</code>.
+     */
+    public static final int START_OBJECT = 1;
+
+    /**
+     * The token type of the end of an object: <code>}</code>.
+     */
+    public static final int END_OBJECT = 2;
+
+    /**
+     * The token type of the beginning of an array: <code>[</code>.
+     */
+    public static final int START_ARRAY = 3;
+
+    /**
+     * The token type of the end of an array: <code>]</code>.
+     */
+    public static final int END_ARRAY = 4;
+
+    /**
+     * The token type of a key in an object. The value is a String.
+     */
+    public static final int KEY = 5;
+
+    /**
+     * The token type of a string value. The value is a String.
+     */
+    public static final int VALUE_STRING = 6;
+
+    /**
+     * The token type of a number value. The value is a Number.
+     */
+    public static final int VALUE_NUMBER = 7;
+
+    /**
+     * The token type of <code>true</code> or <code>false</code>. The value
+     * is a Boolean.
+     */
+    public static final int VALUE_BOOLEAN = 8;
+
+    /**
+     * The token type of <code>null</code>. The value is JSONObject.NULL.
+     */
+    public static final int VALUE_NULL = 9;
+
+    /**
+     * The token type returned when the text has been completely read.
+     */
+    public static final int END_DOCUMENT = 10;
+
+    /*
+     * The states tell what the next call to next() must read:
+     * a value, a key or the end of an object, the separator after a key,
+     * what follows a value in an object, the first element or the end of
+     * an array, an array element, what follows an array element, or nothing.
+     */
+    private static final int stateValue = 0;
+    private static final int stateKey = 1;
+    private static final int stateColon = 2;
+    private static final int stateObjectNext = 3;
+    private static final int stateArrayFirst = 4;
+    private static final int stateArrayValue = 5;
+    private static final int stateArrayNext = 6;
+    private static final int stateDone = 7;
+
+    /**
+     * The nesting stack. Each level is 'a' (array) or 'o' (object).
+     */
+    private char[] stack;
+
+    /**
+     * The state, one of the state constants.
+     */
+    private int state;
+
+    /**
+     * The current token type, or 0 if next has not been called.
+     */
+    private int token;
+
+    /**
+     * The stack top index. A value of 0 indicates that the stack is empty.
+     */
+    private int top;
+
+    /**
+     * The key or scalar value of the current token.
+     */
+    private Object value;
+
+    /**
+     * The tokener that supplies the characters.
+     */
+    private JSONTokener x;
+
+
+    /**
+     * Make a JSONReader that reads one JSON value from a JSONTokener.
+     * @param x A JSONTokener.
+     */
+    public JSONReader(JSONTokener x) {
+        this.stack = new char[16];
+        this.state = stateValue;
+        this.token = 0;
+        this.top = 0;
+        this.x = x;
+    }
+
+
+    /**
+     * Get the nesting depth of the current token. It is 0 outside of any
+     * object or array, 1 for the keys and values of the outermost object
+     * or array, and so on. A START_OBJECT or START_ARRAY token is counted
+     * as inside the structure it begins.
+     * @return The depth.
+     */
+    public int getDepth() {
+        return this.top;
+    }
+
+
+    /**
+     * Get the type of the current token.
+     * @return The type of the token most recently returned by next, or 0
+     *  if next has not yet been called.
+     */
+    public int getToken() {
+        return this.token;
+    }
+
+
+    /**
+     * Get the value of the current token. This is the key String for a KEY
+     * token, and the String, Number, Boolean, or JSONObject.NULL value for
+     * a value token. It is null for the other tokens.
+     * @return The value.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+
+    /**
+     * Read the next token.
+     * @return The type of the token.
+     * @throws JSONException If there is a syntax error.
+     */
+    public int next() throws JSONException {
+        char c;
+        this.value = null;
+        for (;;) {
+            switch (this.state) {
+            case stateValue:
+                return this.token = readValue(this.x.nextClean());
+            case stateKey:
+                c = this.x.nextClean();
+                switch (c) {
+                case 0:
+                    throw this.x.syntaxError(
+                            "A JSONObject text must end with '}'");
+                case '}':
+                    return this.token = end('o');
+                default:
+                    this.x.back();
+                    this.value = this.x.nextValue().toString();
+                    this.state = stateColon;
+                    return this.token = KEY;
+                }
+            case stateColon:
+
+// The key is followed by ':'. We will also tolerate '=' or '=>'.
+
+                c = this.x.nextClean();
+                if (c == '=') {
+                    if (this.x.next() != '>') {
+                        this.x.back();
+                    }
+                } else if (c != ':') {
+                    throw this.x.syntaxError("Expected a ':' after a key");
+                }
+                this.state = stateValue;
+                break;
+            case stateObjectNext:
+
+// Pairs are separated by ','. We will also tolerate ';'.
+
+                switch (this.x.nextClean()) {
+                case ';':
+                case ',':
+                    this.state = stateKey;
+                    break;
+                case '}':
+                    return this.token = end('o');
+                default:
+                    throw this.x.syntaxError("Expected a ',' or '}'");
+                }
+                break;
+            case stateArrayFirst:
+                if (this.x.nextClean() == ']') {
+                    return this.token = end('a');
+                }
+                this.x.back();
+                this.state = stateArrayValue;
+                break;
+            case stateArrayValue:
+                c = this.x.nextClean();
+                if (c == ',') {
+                    this.x.back();
+                    this.value = JSONObject.NULL;
+                    this.state = stateArrayNext;
+                    return this.token = VALUE_NULL;
+                }
+                return this.token = readValue(c);
+            case stateArrayNext:
+                switch (this.x.nextClean()) {
+                case ';':
+                case ',':
+                    if (this.x.nextClean() == ']') {
+                        return this.token = end('a');
+                    }
+                    this.x.back();
+                    this.state = stateArrayValue;
+                    break;
+                case ']':
+                    return this.token = end('a');
+                default:
+                    throw this.x.syntaxError("Expected a ',' or ']'");
+                }
+                break;
+            default:
+                return this.token = END_DOCUMENT;
+            }
+        }
+    }
+
+
+    /**
+     * Read the value of the current token and everything nested within it.
+     * If the current token is START_OBJECT or START_ARRAY, the rest of the
+     * object or array is read and returned as a JSONObject or JSONArray, and
+     * the reader is left as if the matching END_OBJECT or END_ARRAY had been
+     * returned. Otherwise the value of the current token is returned.
+     * @return A JSONObject, JSONArray, String, Number, Boolean, or
+     *  JSONObject.NULL, or null if the current token has no value.
+     * @throws JSONException If there is a syntax error.
+     */
+    public Object readValue() throws JSONException {
+        Object object;
+        switch (this.token) {
+        case START_OBJECT:
+            this.x.back();
+            object = new JSONObject(this.x);
+            this.token = end('o');
+            return object;
+        case START_ARRAY:
+            this.x.back();
+            object = new JSONArray(this.x);
+            this.token = end('a');
+            return object;
+        default:
+            return this.value;
+        }
+    }
+
+
+    /**
+     * Read the object that begins at the current START_OBJECT token.
+     * @return A JSONObject.
+     * @throws JSONException If the current token is not START_OBJECT or if
+     *  there is a syntax error.
+     */
+    public JSONObject readJSONObject() throws JSONException {
+        if (this.token != START_OBJECT) {
+            throw new JSONException("Not at the start of a JSONObject.");
+        }
+        return (JSONObject)readValue();
+    }
+
+
+    /**
+     * Read the array that begins at the current START_ARRAY token.
+     * @return A JSONArray.
+     * @throws JSONException If the current token is not START_ARRAY or if
+     *  there is a syntax error.
+     */
+    public JSONArray readJSONArray() throws JSONException {
+        if (this.token != START_ARRAY) {
+            throw new JSONException("Not at the start of a JSONArray.");
+        }
+        return (JSONArray)readValue();
+    }
+
+
+    /**
+     * Skip everything nested within the current token. If the current token
+     * is START_OBJECT or START_ARRAY, tokens are read until the matching
+     * END_OBJECT or END_ARRAY, which becomes the current token. Otherwise
+     * nothing is done.
+     * @return this.
+     * @throws JSONException If there is a syntax error.
+     */
+    public JSONReader skipChildren() throws JSONException {
+        if (this.token == START_OBJECT || this.token == START_ARRAY) {
+            int depth = this.top;
+            while (this.top >= depth) {
+                if (next() == END_DOCUMENT) {
+                    throw this.x.syntaxError("Unbalanced text");
+                }
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Pop an array or object scope and pick the state that follows it.
+     * @param c The scope to close.
+     * @return END_OBJECT or END_ARRAY.
+     */
+    private int end(char c) {
+        this.top -= 1;
+        afterValue();
+        return c == 'o' ? END_OBJECT : END_ARRAY;
+    }
+
+
+    /**
+     * Pick the state that follows a complete value.
+     */
+    private void afterValue() {
+        this.state = this.top == 0 ? stateDone :
+                this.stack[this.top - 1] == 'o' ? stateObjectNext :
+                stateArrayNext;
+    }
+
+
+    /**
+     * Push an array or object scope.
+     * @param c The scope to open.
+     */
+    private void push(char c) {
+        if (this.top >= this.stack.length) {
+            char[] newStack = new char[this.stack.length * 2];
+            System.arraycopy(this.stack, 0, newStack, 0, this.top);
+            this.stack = newStack;
+        }
+        this.stack[this.top] = c;
+        this.top += 1;
+    }
+
+
+    /**
+     * Read a value that begins with the given character.
+     * @param c The first character of the value.
+     * @return The type of the token.
+     * @throws JSONException If there is a syntax error.
+     */
+    private int readValue(char c) throws JSONException {
+        switch (c) {
+        case '{':
+            push('o');
+            this.state = stateKey;
+            return START_OBJECT;
+        case '[':
+            push('a');
+            this.state = stateArrayFirst;
+            return START_ARRAY;
+        }
+        this.x.back();
+        this.value = this.x.nextValue();
+        afterValue();
+        if (this.value instanceof String) {
+            return VALUE_STRING;
+        }
+        if (this.value instanceof Number) {
+            return VALUE_NUMBER;
+        }
+        if (this.value instanceof Boolean) {
+            return VALUE_BOOLEAN;
+        }
+        return VALUE_NULL;
+    }
+}
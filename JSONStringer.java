@@ -50,11 +50,13 @@ import java.io.StringWriter;
  * <p>
  * The first method called must be <code>array</code> or <code>object</code>.
  * There are no methods for adding commas or colons. JSONStringer adds them for
- * you. Objects and arrays can be nested up to 20 levels deep.
+ * you. Objects and arrays can be nested to any depth. Unless it is made
+ * with <code>checkKeys</code> false, a JSONStringer throws if a key is
+ * written twice in the same object.
  * <p>
  * This can sometimes be easier than using a JSONObject to build a string.
  * @author JSON.org
- * @version 2008-09-18
+ * @version 2026-10-17
  */
 public class JSONStringer extends JSONWriter {
     /**
@@ -64,6 +66,15 @@ public class JSONStringer extends JSONWriter {
         super(new StringWriter());
     }
 
+    /**
+     * Make a fresh JSONStringer. It can be used to build one JSON text.
+     * @param checkKeys True if a key that is written twice in the same
+     *  object is to be rejected.
+     */
+    public JSONStringer(boolean checkKeys) {
+        super(new StringWriter(), checkKeys);
+    }
+
     /**
      * Return the JSON text. This method is used to obtain the product of the
      * JSONStringer instance. It will return <code>null</code> if there was a
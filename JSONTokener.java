@@ -1,11 +1,15 @@
 package org.json;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -35,17 +39,44 @@ SOFTWARE.
  * A JSONTokener takes a source string and extracts characters and tokens from
  * it. It is used by the JSONObject and JSONArray constructors to parse
  * JSON source strings.
+ * <p>
+ * A JSONTokener made from a String or a char array reads the characters
+ * directly with an index cursor. A JSONTokener made from a byte array or a
+ * ByteBuffer decodes UTF-8 as it reads, without an intermediate Reader or
+ * char copy. A JSONTokener made from a File maps the file into memory and
+ * reads the mapped bytes the same way. A JSONTokener made from a Reader reads
+ * through the Reader one character at a time.
  * @author JSON.org
- * @version 2010-12-24
+ * @version 2026-10-17
  */
 public class JSONTokener {
 
-    private int 	character;
+    /**
+     * The largest number of bytes of a file that are mapped as one buffer.
+     */
+    private static final int mapChunk = 1 << 30;
+
+    /**
+     * The charset that decodes a run of ASCII bytes into a String.
+     */
+    private static final Charset utf8 = Charset.forName("UTF-8");
+
+    private char[]  buffer;
+    private ByteBuffer bytes;
+    private int     chunk;
+    private ByteBuffer[] chunks;
+    private long 	character;
 	private boolean eof;
-    private int 	index;
-    private int 	line;
+    private long 	index;
+    private JSONKeyCache keyCache;
+    private boolean lazy;
+    private int     limit;
+    private long 	line;
+    private int     position;
     private char 	previous;
     private Reader 	reader;
+    private CompactMap.Shapes shapes;
+    private char    surrogate;
     private boolean usePrevious;
 
 
@@ -80,7 +111,256 @@ public class JSONTokener {
      * @param s     A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this(s.toCharArray(), 0, s.length());
+    }
+
+
+    /**
+     * Construct a JSONTokener from a range of a char array. The array is
+     * not copied, so it should not be modified while the JSONTokener is in
+     * use.
+     *
+     * @param chars     An array containing the source text.
+     * @param offset    The index of the first character of the source text.
+     * @param length    The number of characters in the source text.
+     */
+    public JSONTokener(char[] chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.buffer = chars;
+        this.position = offset;
+        this.limit = offset + length;
+        this.eof = false;
+        this.usePrevious = false;
+        this.previous = 0;
+        this.index = 0;
+        this.character = 1;
+        this.line = 1;
+    }
+
+
+    /**
+     * Construct a JSONTokener from an array of UTF-8 bytes.
+     *
+     * @param bytes     An array containing UTF-8 encoded source text.
+     */
+    public JSONTokener(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+
+    /**
+     * Construct a JSONTokener from a range of an array of UTF-8 bytes. The
+     * array is not copied, so it should not be modified while the
+     * JSONTokener is in use.
+     *
+     * @param bytes     An array containing UTF-8 encoded source text.
+     * @param offset    The index of the first byte of the source text.
+     * @param length    The number of bytes in the source text.
+     */
+    public JSONTokener(byte[] bytes, int offset, int length) {
+        this(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+
+    /**
+     * Construct a JSONTokener from the remaining UTF-8 bytes of a
+     * ByteBuffer. The buffer may be a heap or a direct buffer. Its position
+     * and limit are not changed.
+     *
+     * @param byteBuffer A buffer containing UTF-8 encoded source text
+     *  between its position and its limit.
+     */
+    public JSONTokener(ByteBuffer byteBuffer) {
+        this(new ByteBuffer[] {byteBuffer});
+    }
+
+
+    /**
+     * Construct a JSONTokener from the remaining UTF-8 bytes of a sequence
+     * of ByteBuffers, read one after another as a single text. A character
+     * may be split between two buffers. The positions and limits of the
+     * buffers are not changed.
+     *
+     * @param byteBuffers An array of buffers containing UTF-8 encoded
+     *  source text between their positions and limits.
+     */
+    public JSONTokener(ByteBuffer[] byteBuffers) {
+        if (byteBuffers.length == 0) {
+            byteBuffers = new ByteBuffer[] {ByteBuffer.allocate(0)};
+        }
+        this.chunks = byteBuffers;
+        this.chunk = 0;
+        this.bytes = byteBuffers[0];
+        this.position = this.bytes.position();
+        this.limit = this.bytes.limit();
+        this.eof = false;
+        this.usePrevious = false;
+        this.previous = 0;
+        this.index = 0;
+        this.character = 1;
+        this.line = 1;
+
+// Skip a byte order mark.
+
+        if (this.limit - this.position >= 3 &&
+                this.bytes.get(this.position) == (byte)0xEF &&
+                this.bytes.get(this.position + 1) == (byte)0xBB &&
+                this.bytes.get(this.position + 2) == (byte)0xBF) {
+            this.position += 3;
+        }
+    }
+
+
+    /**
+     * Construct a JSONTokener from a UTF-8 file. The file is mapped into
+     * memory with FileChannel.map, in pieces of up to a gigabyte, and the
+     * mapped bytes are read directly. The file should not be changed while
+     * the JSONTokener is in use.
+     *
+     * @param file A file containing UTF-8 encoded source text.
+     * @throws JSONException If the file cannot be mapped.
+     */
+    public JSONTokener(File file) throws JSONException {
+        this(map(file));
+    }
+
+
+    /**
+     * Determine if objects are made lazily.
+     * @return true if objects made from this JSONTokener record where their
+     *  values are and parse them only when they are accessed.
+     * @see #setLazy(boolean)
+     */
+    public boolean isLazy() {
+        return this.lazy;
+    }
+
+
+    /**
+     * Make objects lazily. A lazy JSONTokener checks the syntax of each
+     * object completely, but a JSONObject made from it only records where
+     * each value is in the source, and parses a value when it is first
+     * accessed. An object whose text strictly conforms to JSON and has not
+     * been changed is serialized by copying its source text. Only a
+     * JSONTokener made from a String or a char array can be lazy; for
+     * others this setting has no effect.
+     * <p>
+     * A lazy JSONObject parses values as they are read, so it should not be
+     * shared between threads without synchronization.
+     * @param lazy true to make objects lazily.
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+
+    /**
+     * Get the key cache.
+     * @return The JSONKeyCache used for the keys of objects, or null.
+     * @see #setKeyCache(JSONKeyCache)
+     */
+    public JSONKeyCache getKeyCache() {
+        return this.keyCache;
+    }
+
+
+    /**
+     * Set a key cache. The quoted keys of the objects made from this
+     * JSONTokener are then taken from the cache, so that repeated keys
+     * share one String. A cache may be shared by several JSONTokeners.
+     * @param keyCache A JSONKeyCache, or null for none.
+     */
+    public void setKeyCache(JSONKeyCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+
+    /**
+     * Get the Shapes from which the JSONObjects made by this JSONTokener
+     * take their keys. Objects with the same keys in the same order share
+     * one Shape.
+     * @return The Shapes.
+     */
+    CompactMap.Shapes shapes() {
+        if (this.shapes == null) {
+            this.shapes = new CompactMap.Shapes();
+        }
+        return this.shapes;
+    }
+
+
+    /**
+     * Set the Shapes from which the JSONObjects made by this JSONTokener
+     * take their keys, so that they share them with the objects of another
+     * JSONTokener.
+     * @param shapes The Shapes.
+     */
+    void setShapes(CompactMap.Shapes shapes) {
+        this.shapes = shapes;
+    }
+
+
+    /**
+     * Determine if objects should be made lazily by this JSONTokener.
+     * @return true if lazy was requested and the source is a buffer.
+     */
+    boolean makeLazy() {
+        return this.lazy && this.buffer != null;
+    }
+
+
+    /**
+     * Get the buffer index of the next character to be read. This is only
+     * meaningful when the source is a buffer.
+     * @return The buffer index.
+     */
+    int offset() {
+        return this.usePrevious ? this.position - 1 : this.position;
+    }
+
+
+    /**
+     * Determine if the characters read since a buffer index contain no
+     * backslashes and nothing that JSONObject.quote would escape, so that a
+     * quoted string made of them is certainly strict JSON and is written
+     * the same way by quote.
+     * @param start A buffer index.
+     * @return true if the characters are plain.
+     */
+    boolean isPlain(int start) {
+        int end = offset();
+        for (int i = start; i < end; i += 1) {
+            char c = this.buffer[i];
+            if (c == '\\' || isEscaped(c) ||
+                    (c == '/' && i > start && this.buffer[i - 1] == '<')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Determine if JSONObject.quote writes a character as an escape
+     * sequence. The slash, which is escaped only after a less-than sign, is
+     * not included.
+     * @param c A character.
+     * @return true if the character is escaped.
+     */
+    private static boolean isEscaped(char c) {
+        return c < ' ' || (c >= '\u0080' && c < '\u00a0') ||
+            (c >= '\u2000' && c < '\u2100');
+    }
+
+
+    /**
+     * Get the source buffer.
+     * @return The buffer, or null if the source is not a char array.
+     */
+    char[] buffer() {
+        return this.buffer;
     }
 
 
@@ -149,6 +429,21 @@ public class JSONTokener {
         if (this.usePrevious) {
         	this.usePrevious = false;
             c = this.previous;
+        } else if (this.buffer != null) {
+            if (this.position < this.limit) {
+                c = this.buffer[this.position];
+                this.position += 1;
+            } else {
+                c = 0;
+            }
+            if (c == 0) {
+                this.eof = true;
+            }
+        } else if (this.bytes != null) {
+            c = nextUTF8();
+            if (c == 0) {
+                this.eof = true;
+            }
         } else {
 	        try {
 	            c = this.reader.read();
@@ -176,6 +471,120 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Map a file into memory as a sequence of read-only buffers.
+     * @param file A file.
+     * @return An array of mapped buffers covering the whole file.
+     * @throws JSONException If the file cannot be read or mapped.
+     */
+    private static ByteBuffer[] map(File file) throws JSONException {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            int count = (int)((size + mapChunk - 1) / mapChunk);
+            ByteBuffer[] byteBuffers = new ByteBuffer[count];
+            for (int i = 0; i < count; i += 1) {
+                long start = (long)i * mapChunk;
+                byteBuffers[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        start, Math.min(mapChunk, size - start));
+            }
+            return byteBuffers;
+        } catch (IOException exception) {
+            throw new JSONException(exception);
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Move to the next of the byte buffers.
+     * @return true if there is another buffer, false if the bytes are
+     *  exhausted.
+     */
+    private boolean nextChunk() {
+        while (this.chunk + 1 < this.chunks.length) {
+            this.chunk += 1;
+            this.bytes = this.chunks[this.chunk];
+            this.position = this.bytes.position();
+            this.limit = this.bytes.limit();
+            if (this.position < this.limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Decode the next character from the UTF-8 bytes. A character outside
+     * of the Basic Multilingual Plane is returned as a surrogate pair in
+     * two calls.
+     *
+     * @return The next character, or 0 if past the end of the bytes.
+     * @throws JSONException If the bytes are not well formed UTF-8.
+     */
+    private char nextUTF8() throws JSONException {
+        int b;
+        int c;
+        int count;
+        if (this.surrogate != 0) {
+            c = this.surrogate;
+            this.surrogate = 0;
+            return (char)c;
+        }
+        if (this.position >= this.limit && !nextChunk()) {
+            return 0;
+        }
+        b = this.bytes.get(this.position);
+        this.position += 1;
+        if (b >= 0) {
+            return (char)b;
+        }
+        if ((b & 0xE0) == 0xC0) {
+            count = 1;
+            c = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            count = 2;
+            c = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            count = 3;
+            c = b & 0x07;
+        } else {
+            throw syntaxError("Malformed UTF-8");
+        }
+        for (int i = 0; i < count; i += 1) {
+            if (this.position >= this.limit && !nextChunk()) {
+                throw syntaxError("Truncated UTF-8");
+            }
+            b = this.bytes.get(this.position);
+            if ((b & 0xC0) != 0x80) {
+                throw syntaxError("Malformed UTF-8");
+            }
+            c = (c << 6) | (b & 0x3F);
+            this.position += 1;
+        }
+        if ((count == 1 && c < 0x80) || (count == 2 && c < 0x800) ||
+                (count == 3 && (c < 0x10000 || c > 0x10FFFF)) ||
+                (c >= 0xD800 && c <= 0xDFFF)) {
+            throw syntaxError("Malformed UTF-8");
+        }
+        if (c >= 0x10000) {
+            c -= 0x10000;
+            this.surrogate = (char)(0xDC00 + (c & 0x3FF));
+            return (char)(0xD800 + (c >> 10));
+        }
+        return (char)c;
+    }
+
+
     /**
      * Consume the next character, and check that it matches a specified
      * character.
@@ -236,6 +645,30 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Make a String from a run of ASCII bytes of the current buffer. The
+     * bytes are decoded straight from the array behind the buffer, or from
+     * one bulk copy of them if the buffer is direct or mapped.
+     * @param start The index of the first byte in the buffer.
+     * @param length The number of bytes.
+     * @return The String.
+     */
+    private String asciiString(int start, int length) {
+        if (length == 0) {
+            return "";
+        }
+        if (this.bytes.hasArray()) {
+            return new String(this.bytes.array(),
+                    this.bytes.arrayOffset() + start, length, utf8);
+        }
+        byte[] run = new byte[length];
+        ByteBuffer bytes = this.bytes.duplicate();
+        bytes.position(start);
+        bytes.get(run);
+        return new String(run, 0, length, utf8);
+    }
+
+
     /**
      * Return the characters up to the next close quote character.
      * Backslash processing is done. The formal JSON format does not
@@ -249,7 +682,71 @@ public class JSONTokener {
      */
     public String nextString(char quote) throws JSONException {
         char c;
-        StringBuffer sb = new StringBuffer();
+        StringBuffer sb = null;
+
+// When reading from a buffer, take the run of characters up to the first
+// quote, backslash, or line end in one step.
+
+        if (this.buffer != null && !this.usePrevious &&
+                this.previous != '\r') {
+            int start = this.position;
+            int i = start;
+            while (i < this.limit) {
+                c = this.buffer[i];
+                if (c == quote || c == '\\' || c == '\n' || c == '\r' ||
+                        c == 0) {
+                    break;
+                }
+                i += 1;
+            }
+            int length = i - start;
+            if (i < this.limit && this.buffer[i] == quote) {
+                this.position = i + 1;
+                this.index += length + 1;
+                this.character += length + 1;
+                this.previous = quote;
+                return new String(this.buffer, start, length);
+            }
+            sb = new StringBuffer(length + 16);
+            if (length > 0) {
+                sb.append(this.buffer, start, length);
+                this.position = i;
+                this.index += length;
+                this.character += length;
+                this.previous = this.buffer[i - 1];
+            }
+        } else if (this.bytes != null && !this.usePrevious &&
+                this.surrogate == 0 && this.previous != '\r') {
+            int start = this.position;
+            int i = start;
+            while (i < this.limit) {
+                int b = this.bytes.get(i);
+                if (b == quote || b == '\\' || b == '\n' || b == '\r' ||
+                        b <= 0) {
+                    break;
+                }
+                i += 1;
+            }
+            int length = i - start;
+            String run = asciiString(start, length);
+            if (i < this.limit && this.bytes.get(i) == quote) {
+                this.position = i + 1;
+                this.index += length + 1;
+                this.character += length + 1;
+                this.previous = quote;
+                return run;
+            }
+            sb = new StringBuffer(length + 16);
+            if (length > 0) {
+                sb.append(run);
+                this.position = i;
+                this.index += length;
+                this.character += length;
+                this.previous = run.charAt(length - 1);
+            }
+        } else {
+            sb = new StringBuffer();
+        }
         for (;;) {
             c = next();
             switch (c) {
@@ -371,17 +868,31 @@ public class JSONTokener {
          * is allowed to also accept non-standard forms.
          *
          * Accumulate characters until we reach the end of the text or a
-         * formatting character.
+         * formatting character. A buffer is scanned in place and the text
+         * is taken from it in one piece.
          */
 
-        StringBuffer sb = new StringBuffer();
-        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
-            sb.append(c);
-            c = next();
+        if (this.buffer != null && c >= ' ' &&
+                ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+            int start = this.position - 1;
+            int i = this.position;
+            while (i < this.limit && this.buffer[i] >= ' ' &&
+                    ",:]}/\\\"[{;=#".indexOf(this.buffer[i]) < 0) {
+                i += 1;
+            }
+            string = new String(this.buffer, start, i - start).trim();
+            advanceTo(i);
+            next();
+            back();
+        } else {
+            StringBuffer sb = new StringBuffer();
+            while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+                sb.append(c);
+                c = next();
+            }
+            back();
+            string = sb.toString().trim();
         }
-        back();
-
-        string = sb.toString().trim();
         if (string.equals("")) {
             throw syntaxError("Missing value");
         }
@@ -389,6 +900,487 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Get the next key of an object. Without a key cache this is the same
+     * as nextValue().toString(). With one, a quoted key is looked up in the
+     * cache, and a key read from a buffer without escapes is found there
+     * without making a new String.
+     * @return A key.
+     * @throws JSONException If syntax error.
+     */
+    String nextKey() throws JSONException {
+        JSONKeyCache cache = this.keyCache;
+        if (cache == null) {
+            return nextValue().toString();
+        }
+        char c = nextClean();
+        if (c != '"' && c != '\'') {
+            back();
+            return nextValue().toString();
+        }
+        if (this.buffer != null && !this.usePrevious) {
+            int start = this.position;
+            int i = start;
+            while (i < this.limit) {
+                char b = this.buffer[i];
+                if (b == c || b == '\\' || b == '\n' || b == '\r' || b == 0) {
+                    break;
+                }
+                i += 1;
+            }
+            if (i < this.limit && this.buffer[i] == c) {
+                String key = cache.get(this.buffer, start, i - start);
+                advanceTo(i + 1);
+                return key;
+            }
+        }
+        return cache.intern(nextString(c));
+    }
+
+
+    /**
+     * Locate the next value without parsing it. The syntax of the value is
+     * checked in the same way that nextValue would check it.
+     * This is only used when the source is a buffer.
+     * @return A LazyValue.
+     * @throws JSONException If there is a syntax error.
+     */
+    LazyValue nextLazyValue() throws JSONException {
+        char c = nextClean();
+        int start = this.position - 1;
+        boolean strict = skipValue(c);
+        return new LazyValue(this.buffer, start, this.position - start,
+                strict, shapes(), this.keyCache);
+    }
+
+
+    /**
+     * Skip over a value that begins with a character that has already been
+     * read. This is only used when the source is a buffer.
+     * @param c The first character of the value.
+     * @return true if the text of the value strictly conforms to JSON.
+     * @throws JSONException If there is a syntax error.
+     */
+    private boolean skipValue(char c) throws JSONException {
+        switch (c) {
+        case '"':
+        case '\'':
+            return skipString(c);
+        case '{':
+            return skipObject();
+        case '[':
+            return skipArray();
+        }
+
+/*
+ * Unquoted text is accumulated by the same rules as in nextValue. It is
+ * strictly JSON only if it is true, false, null, or a JSON number.
+ */
+
+        int start = this.position - 1;
+        int i = start;
+        while (i < this.limit) {
+            char b = this.buffer[i];
+            if (b < ' ' || ",:]}/\\\"[{;=#".indexOf(b) >= 0) {
+                break;
+            }
+            i += 1;
+        }
+        if (i == start) {
+            back();
+            throw syntaxError("Missing value");
+        }
+        advanceTo(i);
+        while (this.buffer[i - 1] == ' ') {
+            i -= 1;
+        }
+        return isLiteral(this.buffer, start, i);
+    }
+
+
+    /**
+     * Skip over the rest of an object whose opening brace has been read.
+     * @return true if the text of the object strictly conforms to JSON.
+     * @throws JSONException If there is a syntax error.
+     */
+    private boolean skipObject() throws JSONException {
+        boolean strict = true;
+        char c;
+        for (;;) {
+            c = nextClean();
+            if (c == 0) {
+                throw syntaxError("A JSONObject text must end with '}'");
+            }
+            if (c == '}') {
+                return strict;
+            }
+            boolean key = skipValue(c);
+            strict &= c == '"' && key;
+            c = nextClean();
+            if (c == '=') {
+                strict = false;
+                if (next() != '>') {
+                    back();
+                }
+            } else if (c != ':') {
+                throw syntaxError("Expected a ':' after a key");
+            }
+            strict &= skipValue(nextClean());
+            c = nextClean();
+            if (c == ';' || c == ',') {
+                strict &= c == ',';
+                if (nextClean() == '}') {
+                    return false;
+                }
+                back();
+            } else if (c == '}') {
+                return strict;
+            } else {
+                throw syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+
+    /**
+     * Skip over the rest of an array whose opening bracket has been read.
+     * @return true if the text of the array strictly conforms to JSON.
+     * @throws JSONException If there is a syntax error.
+     */
+    private boolean skipArray() throws JSONException {
+        boolean strict = true;
+        char c;
+        if (nextClean() == ']') {
+            return true;
+        }
+        back();
+        for (;;) {
+            c = nextClean();
+            if (c == ',') {
+                back();
+                strict = false;
+            } else {
+                strict &= skipValue(c);
+            }
+            c = nextClean();
+            if (c == ';' || c == ',') {
+                strict &= c == ',';
+                if (nextClean() == ']') {
+                    return false;
+                }
+                back();
+            } else if (c == ']') {
+                return strict;
+            } else {
+                throw syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+
+    /**
+     * Skip over the rest of a string whose opening quote has been read,
+     * checking its escapes as nextString would.
+     * @param quote The quoting character.
+     * @return true if the text of the string strictly conforms to JSON and
+     *  has no characters that JSONObject.quote would escape.
+     * @throws JSONException If the string is unterminated or contains an
+     *  illegal escape.
+     */
+    private boolean skipString(char quote) throws JSONException {
+        boolean strict = quote == '"';
+        char c;
+        int i = this.position;
+        for (;;) {
+            if (i >= this.limit) {
+                advanceTo(i);
+                next();
+                throw syntaxError("Unterminated string");
+            }
+            c = this.buffer[i];
+            if (c == quote) {
+                advanceTo(i + 1);
+                return strict;
+            }
+            if (c == 0 || c == '\n' || c == '\r') {
+                advanceTo(i);
+                next();
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '\\') {
+                advanceTo(i + 1);
+                c = next();
+                switch (c) {
+                case 'u':
+                    for (int j = 0; j < 4; j += 1) {
+                        if (dehexchar(next()) < 0) {
+                            throw syntaxError("Illegal escape.");
+                        }
+                    }
+                    break;
+                case '\'':
+                    strict = false;
+                    break;
+                case 'b':
+                case 't':
+                case 'n':
+                case 'f':
+                case 'r':
+                case '"':
+                case '\\':
+                case '/':
+                    break;
+                default:
+                    throw syntaxError("Illegal escape.");
+                }
+                i = this.position;
+            } else {
+                if (isEscaped(c) ||
+                        (c == '/' && i > 0 && this.buffer[i - 1] == '<')) {
+                    strict = false;
+                }
+                i += 1;
+            }
+        }
+    }
+
+
+    /**
+     * Advance the buffer position to an index, counting the characters
+     * passed over. The characters must not include line ends.
+     * @param i A buffer index not less than the current position.
+     */
+    private void advanceTo(int i) {
+        int count = i - this.position;
+        if (count > 0) {
+            this.index += count;
+            this.character += count;
+            this.previous = this.buffer[i - 1];
+            this.position = i;
+        }
+    }
+
+
+    /**
+     * Determine if a range of characters is <code>true</code>,
+     * <code>false</code>, <code>null</code>, or a JSON number that will be
+     * read as a number. Integers of more than 18 digits are excluded because
+     * they may not be read as numbers, and so are numbers too large to be
+     * finite doubles, such as 1E400, because they cannot be written.
+     * @param chars A buffer.
+     * @param start The index of the first character.
+     * @param end The index after the last character.
+     * @return true if the characters are a strict JSON literal.
+     */
+    private static boolean isLiteral(char[] chars, int start, int end) {
+        int length = end - start;
+        String string = length == 4 || length == 5 ?
+                new String(chars, start, length) : "";
+        if (string.equals("true") || string.equals("false") ||
+                string.equals("null")) {
+            return true;
+        }
+        int i = start;
+        if (i < end && chars[i] == '-') {
+            i += 1;
+        }
+        int digits = i;
+        if (i < end && chars[i] == '0') {
+            i += 1;
+        } else {
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                i += 1;
+            }
+        }
+        if (i == digits) {
+            return false;
+        }
+        boolean integer = true;
+        if (i < end && chars[i] == '.') {
+            integer = false;
+            i += 1;
+            int fraction = i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                i += 1;
+            }
+            if (i == fraction) {
+                return false;
+            }
+        }
+        boolean scaled = false;
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            integer = false;
+            scaled = true;
+            i += 1;
+            if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+                i += 1;
+            }
+            int exponent = i;
+            while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+                i += 1;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        if (i != end) {
+            return false;
+        }
+        if (integer) {
+            return end - digits <= 18;
+        }
+        if (scaled || end - digits > 300) {
+            return !Double.isInfinite(
+                    Double.parseDouble(new String(chars, start, length)));
+        }
+        return true;
+    }
+
+
+    /**
+     * Box a long as an Integer if it fits in an int, else as a Long.
+     * @param l A long.
+     * @return An Integer or a Long.
+     */
+    static Number box(long l) {
+        return l == (int)l ? (Number)Integer.valueOf((int)l) : Long.valueOf(l);
+    }
+
+
+    /**
+     * Convert unquoted text to a number without throwing. The text may be
+     * a hex integer in the 0x- convention, a decimal with a fraction or
+     * exponent, or an integer with an optional sign. Integers become
+     * Integer if they fit in an int, else Long. Text that is not a number,
+     * or an integer too large for a long, produces null.
+     * @param string A nonempty string.
+     * @return An Integer, Long, or Double, or null.
+     */
+    static Number stringToNumber(String string) {
+        int length = string.length();
+        if (length > 2 && string.charAt(0) == '0' &&
+                (string.charAt(1) == 'x' || string.charAt(1) == 'X')) {
+            Number hex = scanInteger(string, 2, 16);
+            if (hex instanceof Integer) {
+                return hex;
+            }
+        }
+        for (int i = 0; i < length; i += 1) {
+            char c = string.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return isDecimal(string) ? Double.valueOf(string) : null;
+            }
+        }
+        return scanInteger(string, 0, 10);
+    }
+
+
+    /**
+     * Scan an optionally signed integer from a position to the end of a
+     * string.
+     * @param string A string.
+     * @param start The index of the sign or first digit.
+     * @param radix 10 or 16.
+     * @return An Integer or Long, or null if the text is not an integer
+     *  or does not fit in a long.
+     */
+    static Number scanInteger(String string, int start, int radix) {
+        int length = string.length();
+        boolean negative = false;
+        int i = start;
+        if (i < length) {
+            char c = string.charAt(i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i += 1;
+            }
+        }
+        if (i == length) {
+            return null;
+        }
+
+// Accumulate negatively so that Long.MIN_VALUE itself can be reached.
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long least = limit / radix;
+        long result = 0;
+        while (i < length) {
+            int digit = Character.digit(string.charAt(i), radix);
+            if (digit < 0 || result < least) {
+                return null;
+            }
+            result *= radix;
+            if (result < limit + digit) {
+                return null;
+            }
+            result -= digit;
+            i += 1;
+        }
+        return box(negative ? result : -result);
+    }
+
+
+    /**
+     * Determine if a string is a decimal number that Double.valueOf will
+     * accept: an optional sign, digits with an optional fraction, an
+     * optional exponent, and an optional type suffix, with at least one
+     * digit before the exponent. Trailing white space is allowed.
+     * @param string A string.
+     * @return true if the string is a decimal number.
+     */
+    static boolean isDecimal(String string) {
+        int end = string.length();
+        while (end > 0 && string.charAt(end - 1) <= ' ') {
+            end -= 1;
+        }
+        if (end > 0) {
+            char c = string.charAt(end - 1);
+            if (c == 'd' || c == 'D' || c == 'f' || c == 'F') {
+                end -= 1;
+            }
+        }
+        int i = 0;
+        if (i < end && (string.charAt(i) == '-' || string.charAt(i) == '+')) {
+            i += 1;
+        }
+        int digits = 0;
+        while (i < end && isDigit(string.charAt(i))) {
+            digits += 1;
+            i += 1;
+        }
+        if (i < end && string.charAt(i) == '.') {
+            i += 1;
+            while (i < end && isDigit(string.charAt(i))) {
+                digits += 1;
+                i += 1;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (string.charAt(i) == 'e' || string.charAt(i) == 'E')) {
+            i += 1;
+            if (i < end &&
+                    (string.charAt(i) == '-' || string.charAt(i) == '+')) {
+                i += 1;
+            }
+            int exponent = i;
+            while (i < end && isDigit(string.charAt(i))) {
+                i += 1;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+
     /**
      * Skip characters until the next character is the requested character.
      * If the requested character is not found, no characters are skipped.
@@ -399,14 +1391,30 @@ public class JSONTokener {
     public char skipTo(char to) throws JSONException {
         char c;
         try {
-            int startIndex = this.index;
-            int startCharacter = this.character;
-            int startLine = this.line;
-            reader.mark(Integer.MAX_VALUE);
+            long startIndex = this.index;
+            long startCharacter = this.character;
+            long startLine = this.line;
+            int startPosition = this.position;
+            int startLimit = this.limit;
+            int startChunk = this.chunk;
+            char startSurrogate = this.surrogate;
+            if (this.reader != null) {
+                reader.mark(Integer.MAX_VALUE);
+            }
             do {
                 c = next();
                 if (c == 0) {
-                    reader.reset();
+                    if (this.reader != null) {
+                        reader.reset();
+                    } else {
+                        if (this.chunks != null) {
+                            this.chunk = startChunk;
+                            this.bytes = this.chunks[startChunk];
+                        }
+                        this.position = startPosition;
+                        this.limit = startLimit;
+                        this.surrogate = startSurrogate;
+                    }
                     this.index = startIndex;
                     this.character = startCharacter;
                     this.line = startLine;
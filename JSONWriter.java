@@ -2,6 +2,7 @@ package org.json;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.HashSet;
 
 /*
 Copyright (c) 2006 JSON.org
@@ -50,14 +51,27 @@ SOFTWARE.
  * <p>
  * The first method called must be <code>array</code> or <code>object</code>.
  * There are no methods for adding commas or colons. JSONWriter adds them for
- * you. Objects and arrays can be nested up to 20 levels deep.
+ * you. Objects and arrays can be nested to any depth. Unless it is made
+ * with <code>checkKeys</code> false, a JSONWriter throws if a key is written
+ * twice in the same object.
  * <p>
  * This can sometimes be easier than using a JSONObject to build a string.
  * @author JSON.org
- * @version 2010-12-24
+ * @version 2026-10-17
  */
 public class JSONWriter {
-    private static final int maxdepth = 20;
+
+    /**
+     * The most keys that a key set may hold and still be cleared for the
+     * next object at its depth. Clearing takes time in proportion to the
+     * capacity of the set, so a larger set is dropped instead.
+     */
+    private static final int maxReusedKeys = 16;
+
+    /**
+     * True if the keys of each object are checked for duplicates.
+     */
+    private final boolean checkKeys;
 
     /**
      * The comma flag determines if a comma should be output before the next
@@ -65,6 +79,12 @@ public class JSONWriter {
      */
     private boolean comma;
 
+    /**
+     * The keys written so far in each object on the stack, or null. A small
+     * set is cleared and used again by the next object at the same depth.
+     */
+    private HashSet[] keys;
+
     /**
      * The current mode. Values:
      * 'a' (array),
@@ -76,9 +96,10 @@ public class JSONWriter {
     protected char mode;
 
     /**
-     * The object/array stack.
+     * The object/array stack: 'a' for an array, and 'k' for an object. It
+     * grows as needed.
      */
-    private JSONObject stack[];
+    private char[] stack;
 
     /**
      * The stack top index. A value of 0 indicates that the stack is empty.
@@ -92,11 +113,25 @@ public class JSONWriter {
 
     /**
      * Make a fresh JSONWriter. It can be used to build one JSON text.
+     * Duplicate keys are rejected.
      */
     public JSONWriter(Writer w) {
+        this(w, true);
+    }
+
+    /**
+     * Make a fresh JSONWriter. It can be used to build one JSON text.
+     * @param w The writer that will receive the output.
+     * @param checkKeys True if a key that is written twice in the same
+     *  object is to be rejected. Checking takes a set per level of nesting
+     *  and a lookup per key.
+     */
+    public JSONWriter(Writer w, boolean checkKeys) {
+        this.checkKeys = checkKeys;
         this.comma = false;
+        this.keys = checkKeys ? new HashSet[16] : null;
         this.mode = 'i';
-        this.stack = new JSONObject[maxdepth];
+        this.stack = new char[16];
         this.top = 0;
         this.writer = w;
     }
@@ -111,12 +146,28 @@ public class JSONWriter {
         if (string == null) {
             throw new JSONException("Null pointer");
         }
+        return this.append(string, null);
+    }
+
+    /**
+     * Append a value given as text or as a bean.
+     * @param string The text of the value, or null if a bean is given.
+     * @param bean A bean, if the string is null.
+     * @return this
+     * @throws JSONException If the value is out of sequence.
+     */
+    private JSONWriter append(String string, Object bean)
+            throws JSONException {
         if (this.mode == 'o' || this.mode == 'a') {
             try {
                 if (this.comma && this.mode == 'a') {
                     this.writer.write(',');
                 }
-                this.writer.write(string);
+                if (string != null) {
+                    this.writer.write(string);
+                } else {
+                    JSONObject.writeBean(this.writer, bean);
+                }
             } catch (IOException e) {
                 throw new JSONException(e);
             }
@@ -134,13 +185,12 @@ public class JSONWriter {
      * <code>endArray</code> will be appended to this array. The
      * <code>endArray</code> method must be called to mark the array's end.
      * @return this
-     * @throws JSONException If the nesting is too deep, or if the object is
-     * started in the wrong place (for example as a key or after the end of the
-     * outermost array or object).
+     * @throws JSONException If the array is started in the wrong place (for
+     * example as a key or after the end of the outermost array or object).
      */
     public JSONWriter array() throws JSONException {
         if (this.mode == 'i' || this.mode == 'o' || this.mode == 'a') {
-            this.push(null);
+            this.push('a');
             this.append("[");
             this.comma = false;
             return this;
@@ -148,6 +198,22 @@ public class JSONWriter {
         throw new JSONException("Misplaced array.");
     }
 
+    /**
+     * Append a bean as an object value. Its getters are written as with
+     * <code>new JSONObject(bean)</code>, but directly to the writer,
+     * without making a JSONObject.
+     * @param bean A bean.
+     * @return this
+     * @throws JSONException If the value is out of sequence or contains an
+     *  invalid number.
+     */
+    public JSONWriter bean(Object bean) throws JSONException {
+        if (bean == null) {
+            throw new JSONException("Null pointer");
+        }
+        return this.append(null, bean);
+    }
+
     /**
      * End something.
      * @param mode Mode
@@ -203,12 +269,14 @@ public class JSONWriter {
             throw new JSONException("Null key.");
         }
         if (this.mode == 'k') {
+            if (this.checkKeys && !this.keys[this.top - 1].add(string)) {
+                throw new JSONException("Duplicate key \"" + string + "\"");
+            }
             try {
-                stack[top - 1].putOnce(string, Boolean.TRUE);
                 if (this.comma) {
                     this.writer.write(',');
                 }
-                this.writer.write(JSONObject.quote(string));
+                JSONObject.quote(string, this.writer);
                 this.writer.write(':');
                 this.comma = false;
                 this.mode = 'o';
@@ -226,9 +294,8 @@ public class JSONWriter {
      * <code>endObject</code> will be appended to this object. The
      * <code>endObject</code> method must be called to mark the object's end.
      * @return this
-     * @throws JSONException If the nesting is too deep, or if the object is
-     * started in the wrong place (for example as a key or after the end of the
-     * outermost array or object).
+     * @throws JSONException If the object is started in the wrong place (for
+     * example as a key or after the end of the outermost array or object).
      */
     public JSONWriter object() throws JSONException {
         if (this.mode == 'i') {
@@ -236,7 +303,7 @@ public class JSONWriter {
         }
         if (this.mode == 'o' || this.mode == 'a') {
             this.append("{");
-            this.push(new JSONObject());
+            this.push('k');
             this.comma = false;
             return this;
         }
@@ -246,7 +313,9 @@ public class JSONWriter {
 
 
     /**
-     * Pop an array or object scope.
+     * Pop an array or object scope. The key set of an object is cleared so
+     * that the next object at the same depth can use it, or dropped if it
+     * held many keys.
      * @param c The scope to close.
      * @throws JSONException If nesting is wrong.
      */
@@ -254,26 +323,40 @@ public class JSONWriter {
         if (this.top <= 0) {
             throw new JSONException("Nesting error.");
         }
-        char m = this.stack[this.top - 1] == null ? 'a' : 'k';
-        if (m != c) {
+        if (this.stack[this.top - 1] != c) {
             throw new JSONException("Nesting error.");
         }
         this.top -= 1;
-        this.mode = this.top == 0 ? 
-        		'd' : this.stack[this.top - 1] == null ? 'a' : 'k';
+        if (c == 'k' && this.checkKeys) {
+            if (this.keys[this.top].size() > maxReusedKeys) {
+                this.keys[this.top] = null;
+            } else {
+                this.keys[this.top].clear();
+            }
+        }
+        this.mode = this.top == 0 ? 'd' : this.stack[this.top - 1];
     }
 
     /**
-     * Push an array or object scope.
-     * @param c The scope to open.
-     * @throws JSONException If nesting is too deep.
+     * Push an array or object scope, growing the stack if it is full.
+     * @param c The scope to open: 'a' for an array, 'k' for an object.
      */
-    private void push(JSONObject jo) throws JSONException {
-        if (this.top >= maxdepth) {
-            throw new JSONException("Nesting too deep.");
+    private void push(char c) {
+        if (this.top == this.stack.length) {
+            char[] stack = new char[this.top * 2];
+            System.arraycopy(this.stack, 0, stack, 0, this.top);
+            this.stack = stack;
+            if (this.checkKeys) {
+                HashSet[] keys = new HashSet[this.top * 2];
+                System.arraycopy(this.keys, 0, keys, 0, this.top);
+                this.keys = keys;
+            }
         }
-        this.stack[this.top] = jo;
-        this.mode = jo == null ? 'a' : 'k';
+        if (c == 'k' && this.checkKeys && this.keys[this.top] == null) {
+            this.keys[this.top] = new HashSet();
+        }
+        this.stack[this.top] = c;
+        this.mode = c;
         this.top += 1;
     }
 
@@ -296,7 +379,10 @@ public class JSONWriter {
      * @throws JSONException If the number is not finite.
      */
     public JSONWriter value(double d) throws JSONException {
-        return this.value(new Double(d));
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            throw new JSONException("JSON does not allow non-finite numbers.");
+        }
+        return this.append(DoubleFormatter.toString(d));
     }
 
     /**
@@ -0,0 +1,123 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+/**
+ * A LazyValue is a JSON value that has been located in a source buffer but
+ * not yet parsed. A JSONObject made by a lazy JSONTokener keeps its values as
+ * LazyValues until they are accessed. If the text of the value conforms
+ * strictly to JSON, it can be copied to the output verbatim.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class LazyValue {
+
+    /**
+     * The buffer containing the text.
+     */
+    final char[] chars;
+
+    /**
+     * The number of characters in the text.
+     */
+    final int length;
+
+    /**
+     * The index of the first character of the text.
+     */
+    final int offset;
+
+    /**
+     * True if the text strictly conforms to JSON and so can be used as
+     * the serialization of the value.
+     */
+    final boolean strict;
+
+    /**
+     * The Shapes of the JSONTokener that located the value, or null.
+     */
+    private final CompactMap.Shapes shapes;
+
+    /**
+     * The key cache of the JSONTokener that located the value, or null.
+     */
+    private final JSONKeyCache keyCache;
+
+
+    /**
+     * Construct a LazyValue. The value is decoded with the Shapes and the
+     * key cache of the JSONTokener that located it, so that the objects
+     * within it share keys with the objects that were parsed eagerly.
+     * @param chars The buffer containing the text.
+     * @param offset The index of the first character of the text.
+     * @param length The number of characters in the text.
+     * @param strict True if the text strictly conforms to JSON.
+     * @param shapes The Shapes of the JSONTokener, or null.
+     * @param keyCache The key cache of the JSONTokener, or null.
+     */
+    LazyValue(char[] chars, int offset, int length, boolean strict,
+            CompactMap.Shapes shapes, JSONKeyCache keyCache) {
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+        this.strict = strict;
+        this.shapes = shapes;
+        this.keyCache = keyCache;
+    }
+
+
+    /**
+     * Parse the text. Objects within the value are themselves made lazily.
+     * @return A Boolean, Double, Integer, JSONArray, JSONObject, Long,
+     *  String, or the JSONObject.NULL object.
+     * @throws JSONException If there is a syntax error.
+     */
+    Object decode() throws JSONException {
+        JSONTokener x = new JSONTokener(this.chars, this.offset, this.length);
+        x.setLazy(true);
+        x.setKeyCache(this.keyCache);
+        x.setShapes(this.shapes);
+        return x.nextValue();
+    }
+
+
+    /**
+     * Determine if the value is an object or an array.
+     * @return true if the text begins with <code>{</code> or <code>[</code>.
+     */
+    boolean isStructure() {
+        char c = this.chars[this.offset];
+        return c == '{' || c == '[';
+    }
+
+
+    /**
+     * Get the source text.
+     * @return The text of the value as it appeared in the source.
+     */
+    public String toString() {
+        return new String(this.chars, this.offset, this.length);
+    }
+}
@@ -0,0 +1,495 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A NumberList is the List that holds the elements of a JSONArray that was
+ * parsed from a text. While the elements are all integers, it keeps them
+ * unboxed in a long array. When it is given a double, it moves them into a
+ * double array with a bitmap that marks the slots that hold integers, so
+ * that an array like [1,2.5,3] stays unboxed too. Integers are returned by
+ * get as Integer if they fit in an int and as Long otherwise, as they were
+ * when they were parsed, so a Long that fits in an int is not held
+ * unboxed, and neither is an integer too large to be exact as a double in a
+ * list of doubles. When it is given an element of another kind, it boxes
+ * its elements into an object array and holds anything from then on.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class NumberList extends AbstractList implements RandomAccess {
+
+    /**
+     * The doubles, or null if this is not a list of doubles.
+     */
+    private double[] doubles;
+
+    /**
+     * The bitmap of the slots of the doubles that hold integers, or null if
+     * none do.
+     */
+    private long[] integers;
+
+    /**
+     * The integers, or null if this is not a list of integers.
+     */
+    private long[] longs;
+
+    /**
+     * The elements, or null if the list holds only numbers.
+     */
+    private Object[] objects;
+
+    /**
+     * The number of elements.
+     */
+    private int size;
+
+
+    /**
+     * Construct an empty NumberList.
+     */
+    NumberList() {
+    }
+
+
+    /**
+     * Determine if a value can be held unboxed by this list.
+     * @param value A value.
+     * @return true if the value is an Integer, or a Long that does not fit
+     *  in an int, and this is a list of integers, or if the value is a
+     *  Double, or such an integer that is exact as a double, and this is a
+     *  list of doubles.
+     */
+    private boolean accepts(Object value) {
+        if (this.longs != null) {
+            return isInteger(value);
+        }
+        return this.doubles != null && (value instanceof Double ||
+                (isInteger(value) && isExact(((Number)value).longValue())));
+    }
+
+
+    /**
+     * Determine if an integer can be held in a double without losing
+     * precision.
+     * @param l An integer.
+     * @return true if the magnitude of the integer is at most 2^53.
+     */
+    private static boolean isExact(long l) {
+        return l >= -(1L << 53) && l <= 1L << 53;
+    }
+
+
+    /**
+     * Determine if a slot of the doubles holds an integer.
+     * @param index The index.
+     * @return true if the bit for the slot is set.
+     */
+    private boolean isIntegerAt(int index) {
+        return this.integers != null && index >> 6 < this.integers.length &&
+                (this.integers[index >> 6] & 1L << index) != 0;
+    }
+
+
+    /**
+     * Set or clear the bit that marks a slot of the doubles as an integer.
+     * @param index The index.
+     * @param integer true if the slot holds an integer.
+     */
+    private void mark(int index, boolean integer) {
+        if (this.integers == null || index >> 6 >= this.integers.length) {
+            if (!integer) {
+                return;
+            }
+            long[] integers = new long[(this.doubles.length + 63) >> 6];
+            if (this.integers != null) {
+                System.arraycopy(this.integers, 0, integers, 0,
+                        this.integers.length);
+            }
+            this.integers = integers;
+        }
+        if (integer) {
+            this.integers[index >> 6] |= 1L << index;
+        } else {
+            this.integers[index >> 6] &= ~(1L << index);
+        }
+    }
+
+
+    /**
+     * Move the integer bits of the slots from an index to the end of the
+     * list by one slot, up to make room for an element or down to close
+     * the gap of one that was removed.
+     * @param index The first slot that moves.
+     * @param up true to move the bits up, false to move them down.
+     */
+    private void shift(int index, boolean up) {
+        if (this.integers == null) {
+            return;
+        }
+        if (up) {
+            for (int i = this.size; i > index; i -= 1) {
+                mark(i, isIntegerAt(i - 1));
+            }
+        } else {
+            for (int i = index; i < this.size - 1; i += 1) {
+                mark(i, isIntegerAt(i + 1));
+            }
+            mark(this.size - 1, false);
+        }
+    }
+
+
+    /**
+     * Determine if a value would be boxed again as the same class by get
+     * from a list of integers.
+     * @param value A value.
+     * @return true if the value is an Integer, or a Long that does not fit
+     *  in an int.
+     */
+    private static boolean isInteger(Object value) {
+        if (value instanceof Long) {
+            long l = ((Long)value).longValue();
+            return l != (int)l;
+        }
+        return value instanceof Integer;
+    }
+
+
+    public boolean add(Object value) {
+        add(this.size, value);
+        return true;
+    }
+
+
+    public void add(int index, Object value) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        prepare(value);
+        int capacity = this.size == 0 ? 10 : this.size * 2;
+        if (this.longs != null) {
+            if (this.size == this.longs.length) {
+                long[] longs = new long[capacity];
+                System.arraycopy(this.longs, 0, longs, 0, this.size);
+                this.longs = longs;
+            }
+            System.arraycopy(this.longs, index, this.longs, index + 1,
+                    this.size - index);
+            this.longs[index] = ((Number)value).longValue();
+        } else if (this.doubles != null) {
+            if (this.size == this.doubles.length) {
+                double[] doubles = new double[capacity];
+                System.arraycopy(this.doubles, 0, doubles, 0, this.size);
+                this.doubles = doubles;
+            }
+            System.arraycopy(this.doubles, index, this.doubles, index + 1,
+                    this.size - index);
+            shift(index, true);
+            this.doubles[index] = ((Number)value).doubleValue();
+            mark(index, !(value instanceof Double));
+        } else {
+            if (this.size == this.objects.length) {
+                Object[] objects = new Object[capacity];
+                System.arraycopy(this.objects, 0, objects, 0, this.size);
+                this.objects = objects;
+            }
+            System.arraycopy(this.objects, index, this.objects, index + 1,
+                    this.size - index);
+            this.objects[index] = value;
+        }
+        this.size += 1;
+        this.modCount += 1;
+    }
+
+
+    public Object get(int index) {
+        check(index);
+        if (this.longs != null) {
+            return JSONTokener.box(this.longs[index]);
+        }
+        if (this.doubles != null) {
+            return isIntegerAt(index) ?
+                JSONTokener.box((long)this.doubles[index]) :
+                Double.valueOf(this.doubles[index]);
+        }
+        return this.objects[index];
+    }
+
+
+    /**
+     * Get an element of a list of numbers as a double without boxing it.
+     * @param index The index.
+     * @return The value.
+     */
+    double getDouble(int index) {
+        check(index);
+        return this.longs != null ?
+                (double)this.longs[index] : this.doubles[index];
+    }
+
+
+    /**
+     * Get an element of a list of numbers as a long without boxing it.
+     * @param index The index.
+     * @return The value.
+     */
+    long getLong(int index) {
+        check(index);
+        return this.longs != null ?
+                this.longs[index] : (long)this.doubles[index];
+    }
+
+
+    /**
+     * Get the hash code that List specifies, computing the hash codes of
+     * unboxed elements from their values so that they are not boxed.
+     * @return The hash code.
+     */
+    public int hashCode() {
+        if (this.objects != null) {
+            return super.hashCode();
+        }
+        int hash = 1;
+        for (int i = 0; i < this.size; i += 1) {
+            long bits;
+            if (this.longs != null || isIntegerAt(i)) {
+                bits = this.longs != null ?
+                    this.longs[i] : (long)this.doubles[i];
+                if (bits == (int)bits) {
+                    hash = 31 * hash + (int)bits;
+                    continue;
+                }
+            } else {
+                bits = Double.doubleToLongBits(this.doubles[i]);
+            }
+            hash = 31 * hash + (int)(bits ^ (bits >>> 32));
+        }
+        return hash;
+    }
+
+
+    /**
+     * Determine if the elements are held unboxed. An empty list that has
+     * not yet been given an element holds numbers.
+     * @return true if the list holds only integers and doubles.
+     */
+    boolean isNumbers() {
+        return this.objects == null;
+    }
+
+
+    /**
+     * Make the list ready to hold a value. An empty list takes the kind of
+     * its first value. A list of integers that is given a double moves its
+     * elements into doubles if they are exact as doubles. A list of numbers
+     * that cannot hold the value unboxed boxes its elements.
+     * @param value A value that is to be added or set.
+     */
+    private void prepare(Object value) {
+        if (this.objects != null || accepts(value)) {
+            return;
+        }
+        if (this.longs != null && value instanceof Double) {
+            int i = 0;
+            while (i < this.size && isExact(this.longs[i])) {
+                i += 1;
+            }
+            if (i == this.size) {
+                double[] doubles = new double[this.longs.length];
+                for (i = 0; i < this.size; i += 1) {
+                    doubles[i] = this.longs[i];
+                }
+                this.doubles = doubles;
+                this.longs = null;
+                for (i = 0; i < this.size; i += 1) {
+                    mark(i, true);
+                }
+                return;
+            }
+        }
+        if (this.size == 0 && this.longs == null && this.doubles == null) {
+            if (isInteger(value)) {
+                this.longs = new long[10];
+            } else if (value instanceof Double) {
+                this.doubles = new double[10];
+            } else {
+                this.objects = new Object[10];
+            }
+            return;
+        }
+        Object[] objects = new Object[Math.max(this.size * 2, 10)];
+        for (int i = 0; i < this.size; i += 1) {
+            objects[i] = get(i);
+        }
+        this.objects = objects;
+        this.longs = null;
+        this.doubles = null;
+        this.integers = null;
+    }
+
+
+    public Object remove(int index) {
+        Object previous = get(index);
+        int moved = this.size - index - 1;
+        if (this.longs != null) {
+            System.arraycopy(this.longs, index + 1, this.longs, index, moved);
+        } else if (this.doubles != null) {
+            System.arraycopy(this.doubles, index + 1, this.doubles, index,
+                    moved);
+            shift(index, false);
+        } else {
+            System.arraycopy(this.objects, index + 1, this.objects, index,
+                    moved);
+            this.objects[this.size - 1] = null;
+        }
+        this.size -= 1;
+        this.modCount += 1;
+        return previous;
+    }
+
+
+    public Object set(int index, Object value) {
+        Object previous = get(index);
+        prepare(value);
+        if (this.longs != null) {
+            this.longs[index] = ((Number)value).longValue();
+        } else if (this.doubles != null) {
+            this.doubles[index] = ((Number)value).doubleValue();
+            mark(index, !(value instanceof Double));
+        } else {
+            this.objects[index] = value;
+        }
+        return previous;
+    }
+
+
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * Copy the elements of a list of numbers into a new double array.
+     * @return An array of the values.
+     */
+    double[] toDoubleArray() {
+        double[] doubles = new double[this.size];
+        if (this.longs != null) {
+            for (int i = 0; i < this.size; i += 1) {
+                doubles[i] = this.longs[i];
+            }
+        } else if (this.doubles != null) {
+            System.arraycopy(this.doubles, 0, doubles, 0, this.size);
+        }
+        return doubles;
+    }
+
+
+    /**
+     * Copy the elements of a list of numbers into a new long array.
+     * @return An array of the values.
+     */
+    long[] toLongArray() {
+        long[] longs = new long[this.size];
+        if (this.longs != null) {
+            System.arraycopy(this.longs, 0, longs, 0, this.size);
+        } else if (this.doubles != null) {
+            for (int i = 0; i < this.size; i += 1) {
+                longs[i] = (long)this.doubles[i];
+            }
+        }
+        return longs;
+    }
+
+
+    /**
+     * Make a copy of the list that has no unused capacity. This is done when
+     * a JSONArray is frozen and will not grow again.
+     * @return A new NumberList with the same elements.
+     */
+    NumberList copy() {
+        NumberList list = new NumberList();
+        if (this.longs != null) {
+            list.longs = new long[this.size];
+            System.arraycopy(this.longs, 0, list.longs, 0, this.size);
+        } else if (this.doubles != null) {
+            list.doubles = new double[this.size];
+            System.arraycopy(this.doubles, 0, list.doubles, 0, this.size);
+            if (this.integers != null) {
+                list.integers = new long[(this.size + 63) >> 6];
+                System.arraycopy(this.integers, 0, list.integers, 0,
+                        Math.min(list.integers.length,
+                        this.integers.length));
+            }
+        } else if (this.objects != null) {
+            list.objects = new Object[this.size];
+            System.arraycopy(this.objects, 0, list.objects, 0, this.size);
+        }
+        list.size = this.size;
+        return list;
+    }
+
+
+    /**
+     * Write an element of a list of numbers as JSON text without boxing it.
+     * @param index The index.
+     * @param writer A writer.
+     * @throws JSONException If the element is not a finite number.
+     * @throws IOException
+     */
+    void write(int index, Writer writer) throws JSONException, IOException {
+        check(index);
+        if (this.longs != null || isIntegerAt(index)) {
+            long l = this.longs != null ?
+                this.longs[index] : (long)this.doubles[index];
+            if (writer instanceof JSONByteWriter) {
+                ((JSONByteWriter)writer).writeLong(l);
+            } else {
+                writer.write(Long.toString(l));
+            }
+        } else {
+            double d = this.doubles[index];
+            if (Double.isInfinite(d) || Double.isNaN(d)) {
+                throw new JSONException(
+                    "JSON does not allow non-finite numbers.");
+            }
+            DoubleFormatter.write(d, writer);
+        }
+    }
+
+
+    private void check(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index +
+                    ", Size: " + this.size);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A PersistentList is an immutable list that can make a changed copy of
+ * itself without copying all of its elements. The elements are kept in a
+ * tree of arrays of up to 32 elements, so a copy with one element replaced
+ * or appended shares all but the arrays on the path to that element. It
+ * holds the elements of a frozen JSONArray and the members of a
+ * PersistentMap.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class PersistentList extends AbstractList implements RandomAccess {
+
+    /**
+     * The empty list.
+     */
+    static final PersistentList EMPTY = new PersistentList(0, 0, new Object[0]);
+
+    /**
+     * The root of the tree. If the shift is 0, it holds the elements.
+     * Otherwise it holds the arrays of the next level down.
+     */
+    private final Object[] root;
+
+    /**
+     * The number of bits of the index that select the array below the root.
+     */
+    private final int shift;
+
+    /**
+     * The number of elements.
+     */
+    private final int size;
+
+
+    private PersistentList(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+
+    /**
+     * Make a PersistentList containing the elements of an array.
+     * @param elements The elements. The array is not kept.
+     * @return A PersistentList.
+     */
+    static PersistentList of(Object[] elements) {
+        int      length = elements.length;
+        Object[] nodes = new Object[length];
+        int      shift = 0;
+        System.arraycopy(elements, 0, nodes, 0, length);
+        while (nodes.length > 32) {
+            Object[] parents = new Object[(nodes.length + 31) >>> 5];
+            for (int i = 0; i < parents.length; i += 1) {
+                int      from = i << 5;
+                Object[] node = new Object[Math.min(32, nodes.length - from)];
+                System.arraycopy(nodes, from, node, 0, node.length);
+                parents[i] = node;
+            }
+            nodes = parents;
+            shift += 5;
+        }
+        return new PersistentList(length, shift, nodes);
+    }
+
+
+    public Object get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index +
+                    ", Size: " + this.size);
+        }
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= 5) {
+            node = (Object[])node[(index >>> level) & 31];
+        }
+        return node[index & 31];
+    }
+
+
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * Make a copy of the list with an element replaced or appended.
+     * @param index The index of the element, or the size of the list to
+     *  append the element.
+     * @param value The element.
+     * @return A new PersistentList.
+     */
+    PersistentList with(int index, Object value) {
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index +
+                    ", Size: " + this.size);
+        }
+        Object[] root = this.root;
+        int      shift = this.shift;
+        if (index == this.size && index == 1 << (shift + 5)) {
+            root = new Object[] {root};
+            shift += 5;
+        }
+        return new PersistentList(index == this.size ? index + 1 : this.size,
+                shift, set(root, shift, index, value));
+    }
+
+
+    /**
+     * Copy the arrays on the path to an index, setting the element there.
+     * Arrays are lengthened as needed when an element is appended.
+     */
+    private static Object[] set(Object[] node, int level, int index,
+            Object value) {
+        int      i = (index >>> level) & 31;
+        Object[] copy = new Object[Math.max(node.length, i + 1)];
+        System.arraycopy(node, 0, copy, 0, node.length);
+        if (level == 0) {
+            copy[i] = value;
+        } else {
+            copy[i] = set(i < node.length ? (Object[])node[i] : new Object[0],
+                    level - 5, index, value);
+        }
+        return copy;
+    }
+}
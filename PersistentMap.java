@@ -0,0 +1,475 @@
+package org.json;
+
+/*
+Copyright (c) 2026 JSON.org
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+The Software shall be used for Good, not Evil.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A PersistentMap is an immutable map that can make a changed copy of itself
+ * in time and memory proportional to the logarithm of its size. It holds the
+ * members of a frozen JSONObject.
+ * <p>
+ * The members are kept in a PersistentList in the order in which they were
+ * first put. A removed member leaves a null in the list until the list is
+ * rebuilt. Above a small size, the index of each key's member is found
+ * through a hash array mapped trie: each node has a 32-bit bitmap of the
+ * slots that are in use and an array holding only those slots. A slot holds
+ * a Key, a node of the next level, or an array of Keys whose hash codes are
+ * all the same. Below that size the members are searched linearly, as in a
+ * CompactMap.
+ * @author JSON.org
+ * @version 2026-10-17
+ */
+final class PersistentMap extends AbstractMap {
+
+    /**
+     * The number of members up to which keys are searched linearly.
+     */
+    private static final int THRESHOLD = 8;
+
+    /**
+     * The empty map.
+     */
+    static final PersistentMap EMPTY =
+        new PersistentMap(null, PersistentList.EMPTY, 0);
+
+    /**
+     * The members, and nulls where members were removed.
+     */
+    private final PersistentList members;
+
+    /**
+     * The root of the trie, or null if the keys are searched linearly.
+     */
+    private final Node root;
+
+    /**
+     * The number of members.
+     */
+    private final int size;
+
+
+    private PersistentMap(Node root, PersistentList members, int size) {
+        this.root = root;
+        this.members = members;
+        this.size = size;
+    }
+
+
+    /**
+     * Make a PersistentMap containing members that have distinct keys.
+     * @param keys The keys.
+     * @param values The values, in the same order as the keys.
+     * @return A PersistentMap.
+     */
+    static PersistentMap of(Object[] keys, Object[] values) {
+        Object[] members = new Object[keys.length];
+        for (int index = 0; index < keys.length; index += 1) {
+            members[index] = new Member(keys[index], values[index]);
+        }
+        return of(members);
+    }
+
+
+    /**
+     * Make a PersistentMap containing members that have distinct keys.
+     * @param members An array of Members. The array is not kept.
+     */
+    private static PersistentMap of(Object[] members) {
+        Node root = null;
+        if (members.length > THRESHOLD) {
+            root = Node.EMPTY;
+            for (int index = 0; index < members.length; index += 1) {
+                Object key = ((Member)members[index]).key;
+                root = root.insert(new Key(key, key.hashCode(), index), 0);
+            }
+        }
+        return new PersistentMap(root, PersistentList.of(members),
+                members.length);
+    }
+
+
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+
+    public Set entrySet() {
+        return new AbstractSet() {
+            public Iterator iterator() {
+                return new Members();
+            }
+
+            public int size() {
+                return PersistentMap.this.size;
+            }
+        };
+    }
+
+
+    /**
+     * Find the index of the member with a key.
+     * @param key A key.
+     * @return The index, or -1 if there is no such member.
+     */
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        if (this.root == null) {
+            int length = this.members.size();
+            for (int index = 0; index < length; index += 1) {
+                Member member = (Member)this.members.get(index);
+                if (member != null && member.key.equals(key)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+        Key k = this.root.find(key, key.hashCode());
+        return k == null ? -1 : k.index;
+    }
+
+
+    public Object get(Object key) {
+        int index = find(key);
+        return index < 0 ? null : ((Member)this.members.get(index)).value;
+    }
+
+
+    public int size() {
+        return this.size;
+    }
+
+
+    /**
+     * Make a copy of the map with a member put. A new key is put after the
+     * existing keys.
+     * @param key A key.
+     * @param value The value.
+     * @return A new PersistentMap, or this map if the key already has the
+     *  value.
+     */
+    PersistentMap with(Object key, Object value) {
+        int index = find(key);
+        if (index >= 0) {
+            Member member = (Member)this.members.get(index);
+            if (member.value == value) {
+                return this;
+            }
+            return new PersistentMap(this.root,
+                    this.members.with(index, new Member(member.key, value)),
+                    this.size);
+        }
+        index = this.members.size();
+        PersistentList members =
+            this.members.with(index, new Member(key, value));
+        if (this.root == null && this.size == THRESHOLD) {
+            return of(live(members, this.size + 1));
+        }
+        return new PersistentMap(this.root == null ? null :
+                this.root.insert(new Key(key, key.hashCode(), index), 0),
+                members, this.size + 1);
+    }
+
+
+    /**
+     * Make a copy of the map without a member. When more than half of the
+     * list of members is nulls, the map is rebuilt.
+     * @param key A key.
+     * @return A new PersistentMap, or this map if there is no such member.
+     */
+    PersistentMap without(Object key) {
+        int index = find(key);
+        if (index < 0) {
+            return this;
+        }
+        PersistentList members = this.members.with(index, null);
+        int size = this.size - 1;
+        if (size < members.size() / 2) {
+            return of(live(members, size));
+        }
+        return new PersistentMap(this.root == null ? null :
+                this.root.remove(key, key.hashCode(), 0), members, size);
+    }
+
+
+    /**
+     * Collect the members that have not been removed.
+     */
+    private static Object[] live(PersistentList members, int size) {
+        Object[] live = new Object[size];
+        int      length = members.size();
+        int      j = 0;
+        for (int index = 0; index < length; index += 1) {
+            Object member = members.get(index);
+            if (member != null) {
+                live[j] = member;
+                j += 1;
+            }
+        }
+        return live;
+    }
+
+
+    /**
+     * Count the bits that are set in an int.
+     */
+    private static int bitCount(int i) {
+        i = i - ((i >>> 1) & 0x55555555);
+        i = (i & 0x33333333) + ((i >>> 2) & 0x33333333);
+        i = (i + (i >>> 4)) & 0x0f0f0f0f;
+        return (i * 0x01010101) >>> 24;
+    }
+
+
+    /**
+     * A Key maps a key to the index of its member.
+     */
+    private static final class Key {
+        final int    hash;
+        final int    index;
+        final Object key;
+
+        Key(Object key, int hash, int index) {
+            this.key = key;
+            this.hash = hash;
+            this.index = index;
+        }
+    }
+
+
+    /**
+     * A Member is an immutable map entry.
+     */
+    private static final class Member implements Map.Entry {
+        final Object key;
+        final Object value;
+
+        Member(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public boolean equals(Object object) {
+            if (!(object instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry e = (Map.Entry)object;
+            return this.key.equals(e.getKey()) &&
+                    (this.value == null ? e.getValue() == null :
+                        this.value.equals(e.getValue()));
+        }
+
+        public Object getKey() {
+            return this.key;
+        }
+
+        public Object getValue() {
+            return this.value;
+        }
+
+        public int hashCode() {
+            return this.key.hashCode() ^
+                    (this.value == null ? 0 : this.value.hashCode());
+        }
+
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+
+
+    /**
+     * An iterator over the members, skipping the nulls of removed members.
+     */
+    private final class Members implements Iterator {
+        private int index;
+        private int remaining = PersistentMap.this.size;
+
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        public Object next() {
+            if (this.remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            Object member;
+            do {
+                member = PersistentMap.this.members.get(this.index);
+                this.index += 1;
+            } while (member == null);
+            this.remaining -= 1;
+            return member;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    /**
+     * A Node is a level of the trie. Each level is selected by 5 bits of
+     * the hash code, starting with the lowest.
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int      bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        /**
+         * Find the Key for a key.
+         * @return The Key, or null if there is none.
+         */
+        Key find(Object key, int hash) {
+            Node node = this;
+            int  shift = 0;
+            for (;;) {
+                int bit = 1 << ((hash >>> shift) & 31);
+                if ((node.bitmap & bit) == 0) {
+                    return null;
+                }
+                Object slot = node.slots[bitCount(node.bitmap & (bit - 1))];
+                if (slot instanceof Node) {
+                    node = (Node)slot;
+                    shift += 5;
+                } else if (slot instanceof Key) {
+                    Key k = (Key)slot;
+                    return k.hash == hash && k.key.equals(key) ? k : null;
+                } else {
+                    Key[] keys = (Key[])slot;
+                    if (keys[0].hash == hash) {
+                        for (int i = 0; i < keys.length; i += 1) {
+                            if (keys[i].key.equals(key)) {
+                                return keys[i];
+                            }
+                        }
+                    }
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Make a copy of the node with a Key for a new key added.
+         */
+        Node insert(Key k, int shift) {
+            int bit = 1 << ((k.hash >>> shift) & 31);
+            int i = bitCount(this.bitmap & (bit - 1));
+            if ((this.bitmap & bit) == 0) {
+                Object[] slots = new Object[this.slots.length + 1];
+                System.arraycopy(this.slots, 0, slots, 0, i);
+                slots[i] = k;
+                System.arraycopy(this.slots, i, slots, i + 1,
+                        this.slots.length - i);
+                return new Node(this.bitmap | bit, slots);
+            }
+            Object slot = this.slots[i];
+            Object[] slots = this.slots.clone();
+            if (slot instanceof Node) {
+                slots[i] = ((Node)slot).insert(k, shift + 5);
+            } else {
+                int hash = slot instanceof Key ?
+                    ((Key)slot).hash : ((Key[])slot)[0].hash;
+                if (hash == k.hash) {
+                    Key[] keys = slot instanceof Key ?
+                        new Key[] {(Key)slot} : (Key[])slot;
+                    Key[] grown = new Key[keys.length + 1];
+                    System.arraycopy(keys, 0, grown, 0, keys.length);
+                    grown[keys.length] = k;
+                    slots[i] = grown;
+                } else {
+                    int below = 1 << ((hash >>> (shift + 5)) & 31);
+                    slots[i] = new Node(below, new Object[] {slot})
+                        .insert(k, shift + 5);
+                }
+            }
+            return new Node(this.bitmap, slots);
+        }
+
+        /**
+         * Make a copy of the node without the Key for a key that it holds.
+         * A node below this one that would be left empty is removed, and
+         * one that would be left holding a single Key or array of Keys is
+         * replaced by it.
+         */
+        Node remove(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int i = bitCount(this.bitmap & (bit - 1));
+            Object slot = this.slots[i];
+            Object replacement = null;
+            if (slot instanceof Node) {
+                Node node = ((Node)slot).remove(key, hash, shift + 5);
+                if (node.slots.length == 1 &&
+                        !(node.slots[0] instanceof Node)) {
+                    replacement = node.slots[0];
+                } else if (node.slots.length > 0) {
+                    replacement = node;
+                }
+            } else if (slot instanceof Key[]) {
+                Key[] keys = (Key[])slot;
+                if (keys.length == 2) {
+                    replacement = keys[0].key.equals(key) ? keys[1] : keys[0];
+                } else {
+                    Key[] shrunk = new Key[keys.length - 1];
+                    int   j = 0;
+                    for (int n = 0; n < keys.length; n += 1) {
+                        if (!keys[n].key.equals(key)) {
+                            shrunk[j] = keys[n];
+                            j += 1;
+                        }
+                    }
+                    replacement = shrunk;
+                }
+            }
+            if (replacement != null) {
+                Object[] slots = this.slots.clone();
+                slots[i] = replacement;
+                return new Node(this.bitmap, slots);
+            }
+            Object[] slots = new Object[this.slots.length - 1];
+            System.arraycopy(this.slots, 0, slots, 0, i);
+            System.arraycopy(this.slots, i + 1, slots, i, slots.length - i);
+            return new Node(this.bitmap & ~bit, slots);
+        }
+    }
+}
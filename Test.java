@@ -2,10 +2,15 @@ package org.json;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import junit.framework.TestCase;
 
 /*
@@ -169,9 +174,9 @@ public class Test extends TestCase {
                 "}}", jsonobject.toString(4));
 
         jsonobject = JSONML.toJSONObject(string);
-        assertEquals("{\"cook_time\":\"3 hours\",\"name\":\"bread\",\"tagName\":\"recipe\",\"childNodes\":[{\"tagName\":\"title\",\"childNodes\":[\"Basic bread\"]},{\"amount\":8,\"unit\":\"dL\",\"tagName\":\"ingredient\",\"childNodes\":[\"Flour\"]},{\"amount\":10,\"unit\":\"grams\",\"tagName\":\"ingredient\",\"childNodes\":[\"Yeast\"]},{\"amount\":4,\"unit\":\"dL\",\"tagName\":\"ingredient\",\"state\":\"warm\",\"childNodes\":[\"Water\"]},{\"amount\":1,\"unit\":\"teaspoon\",\"tagName\":\"ingredient\",\"childNodes\":[\"Salt\"]},{\"tagName\":\"instructions\",\"childNodes\":[{\"tagName\":\"step\",\"childNodes\":[\"Mix all ingredients together.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Knead thoroughly.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Cover with a cloth, and leave for one hour in warm room.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Knead again.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Place in a bread baking tin.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Cover with a cloth, and leave for one hour in warm room.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Bake in the oven at 180(degrees)C for 30 minutes.\"]}]}],\"prep_time\":\"5 mins\"}",
+        assertEquals("{\"tagName\":\"recipe\",\"name\":\"bread\",\"prep_time\":\"5 mins\",\"cook_time\":\"3 hours\",\"childNodes\":[{\"tagName\":\"title\",\"childNodes\":[\"Basic bread\"]},{\"tagName\":\"ingredient\",\"amount\":8,\"unit\":\"dL\",\"childNodes\":[\"Flour\"]},{\"tagName\":\"ingredient\",\"amount\":10,\"unit\":\"grams\",\"childNodes\":[\"Yeast\"]},{\"tagName\":\"ingredient\",\"amount\":4,\"unit\":\"dL\",\"state\":\"warm\",\"childNodes\":[\"Water\"]},{\"tagName\":\"ingredient\",\"amount\":1,\"unit\":\"teaspoon\",\"childNodes\":[\"Salt\"]},{\"tagName\":\"instructions\",\"childNodes\":[{\"tagName\":\"step\",\"childNodes\":[\"Mix all ingredients together.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Knead thoroughly.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Cover with a cloth, and leave for one hour in warm room.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Knead again.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Place in a bread baking tin.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Cover with a cloth, and leave for one hour in warm room.\"]},{\"tagName\":\"step\",\"childNodes\":[\"Bake in the oven at 180(degrees)C for 30 minutes.\"]}]}]}",
                 jsonobject.toString());
-        assertEquals("<recipe cook_time=\"3 hours\" name=\"bread\" prep_time=\"5 mins\"><title>Basic bread</title><ingredient amount=\"8\" unit=\"dL\">Flour</ingredient><ingredient amount=\"10\" unit=\"grams\">Yeast</ingredient><ingredient amount=\"4\" unit=\"dL\" state=\"warm\">Water</ingredient><ingredient amount=\"1\" unit=\"teaspoon\">Salt</ingredient><instructions><step>Mix all ingredients together.</step><step>Knead thoroughly.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Knead again.</step><step>Place in a bread baking tin.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Bake in the oven at 180(degrees)C for 30 minutes.</step></instructions></recipe>",
+        assertEquals("<recipe name=\"bread\" prep_time=\"5 mins\" cook_time=\"3 hours\"><title>Basic bread</title><ingredient amount=\"8\" unit=\"dL\">Flour</ingredient><ingredient amount=\"10\" unit=\"grams\">Yeast</ingredient><ingredient amount=\"4\" unit=\"dL\" state=\"warm\">Water</ingredient><ingredient amount=\"1\" unit=\"teaspoon\">Salt</ingredient><instructions><step>Mix all ingredients together.</step><step>Knead thoroughly.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Knead again.</step><step>Place in a bread baking tin.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Bake in the oven at 180(degrees)C for 30 minutes.</step></instructions></recipe>",
                 JSONML.toString(jsonobject));
 
         jsonarray = JSONML.toJSONArray(string);
@@ -251,7 +256,7 @@ public class Test extends TestCase {
                 "        ]\n" +
                 "    ]\n" +
                 "]", jsonarray.toString(4));
-        assertEquals("<recipe cook_time=\"3 hours\" name=\"bread\" prep_time=\"5 mins\"><title>Basic bread</title><ingredient amount=\"8\" unit=\"dL\">Flour</ingredient><ingredient amount=\"10\" unit=\"grams\">Yeast</ingredient><ingredient amount=\"4\" unit=\"dL\" state=\"warm\">Water</ingredient><ingredient amount=\"1\" unit=\"teaspoon\">Salt</ingredient><instructions><step>Mix all ingredients together.</step><step>Knead thoroughly.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Knead again.</step><step>Place in a bread baking tin.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Bake in the oven at 180(degrees)C for 30 minutes.</step></instructions></recipe>",
+        assertEquals("<recipe name=\"bread\" prep_time=\"5 mins\" cook_time=\"3 hours\"><title>Basic bread</title><ingredient amount=\"8\" unit=\"dL\">Flour</ingredient><ingredient amount=\"10\" unit=\"grams\">Yeast</ingredient><ingredient amount=\"4\" unit=\"dL\" state=\"warm\">Water</ingredient><ingredient amount=\"1\" unit=\"teaspoon\">Salt</ingredient><instructions><step>Mix all ingredients together.</step><step>Knead thoroughly.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Knead again.</step><step>Place in a bread baking tin.</step><step>Cover with a cloth, and leave for one hour in warm room.</step><step>Bake in the oven at 180(degrees)C for 30 minutes.</step></instructions></recipe>",
                 JSONML.toString(jsonarray));
 
         string = "<div id=\"demo\" class=\"JSONML\"><p>JSONML is a transformation between <b>JSON</b> and <b>XML</b> that preserves ordering of document features.</p><p>JSONML can work with JSON arrays or JSON objects.</p><p>Three<br/>little<br/>words</p></div>";
@@ -491,7 +496,7 @@ public class Test extends TestCase {
                 "  ],\n" +
                 "  \"slashes\": \"///\"\n" +
                 "}", jsonobject.toString(2));
-        assertEquals("<quotes>'</quotes><quotes>&quot;</quotes><slashes>///</slashes><ei><quotes>&quot;'</quotes></ei><eo><b>don't</b><a>&quot;quoted&quot;</a></eo><closetag>&lt;/script&gt;</closetag><backslash>\\</backslash>",
+        assertEquals("<slashes>///</slashes><closetag>&lt;/script&gt;</closetag><backslash>\\</backslash><ei><quotes>&quot;'</quotes></ei><eo><a>&quot;quoted&quot;</a><b>don't</b></eo><quotes>'</quotes><quotes>&quot;</quotes>",
                 XML.toString(jsonobject));
 
         jsonobject = new JSONObject(
@@ -557,22 +562,22 @@ public class Test extends TestCase {
                 "    ],\n" +
                 "    \"int\": 57,\n" +
                 "    \"keys\": [\n" +
+                "        \"foo\",\n" +
                 "        \"to\",\n" +
+                "        \"op\",\n" +
                 "        \"ten\",\n" +
+                "        \"String\",\n" +
                 "        \"JSONObject\",\n" +
                 "        \"JSONArray\",\n" +
-                "        \"op\",\n" +
                 "        \"int\",\n" +
-                "        \"true\",\n" +
-                "        \"foo\",\n" +
-                "        \"zero\",\n" +
                 "        \"double\",\n" +
-                "        \"String\",\n" +
+                "        \"true\",\n" +
                 "        \"false\",\n" +
+                "        \"null\",\n" +
                 "        \"bool\",\n" +
+                "        \"zero\",\n" +
                 "        \"\\\\u2028\",\n" +
-                "        \"\\\\u2029\",\n" +
-                "        \"null\"\n" +
+                "        \"\\\\u2029\"\n" +
                 "    ],\n" +
                 "    \"null\": null,\n" +
                 "    \"op\": \"Good\",\n" +
@@ -620,13 +625,13 @@ public class Test extends TestCase {
                 "  ],\n" +
                 "  \"two\": \" \\\"2\\\" \"\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<xml>First \t&lt;content&gt;\n" +
+        assertEquals("<xml><one>1</one><two> &quot;2&quot; </two><five/><five/>First \t&lt;content&gt;\n" +
                 "This is &quot;content&quot;.\n" +
                 "JSON does not preserve the sequencing of elements and contents.\n" +
                 "Content text is an implied structure in XML.\n" +
                 "JSON does not have implied structure:\n" +
                 "everything is explicit.\n" +
-                "CDATA blocks&lt;are&gt;&lt;supported&gt;!<two> &quot;2&quot; </two><seven>7</seven><five/><five/><one>1</one><three>3</three><three>III</three><three>T H R E E</three><four/><six>6</six></xml>",
+                "CDATA blocks&lt;are&gt;&lt;supported&gt;!<three>3</three><three>III</three><three>T H R E E</three><four/><six>6</six><seven>7</seven></xml>",
                 XML.toString(jsonobject));
 
         ja = JSONML.toJSONArray(string);
@@ -667,7 +672,7 @@ public class Test extends TestCase {
                 "    \"everything is explicit.\",\n" +
                 "    \"CDATA blocks<are><supported>!\"\n" +
                 "]", ja.toString(4));
-        assertEquals("<xml two=\" &quot;2&quot; \" one=\"1\"><five/>First \t&lt;content&gt;<five/>This is &quot;content&quot;.<three></three>JSON does not preserve the sequencing of elements and contents.<three>III</three><three>T H R E E</three><four/>Content text is an implied structure in XML.<six content=\"6\"/>JSON does not have implied structure:<seven></seven>everything is explicit.CDATA blocks&lt;are&gt;&lt;supported&gt;!</xml>",
+        assertEquals("<xml one=\"1\" two=\" &quot;2&quot; \"><five/>First \t&lt;content&gt;<five/>This is &quot;content&quot;.<three></three>JSON does not preserve the sequencing of elements and contents.<three>III</three><three>T H R E E</three><four/>Content text is an implied structure in XML.<six content=\"6\"/>JSON does not have implied structure:<seven></seven>everything is explicit.CDATA blocks&lt;are&gt;&lt;supported&gt;!</xml>",
                 JSONML.toString(ja));
 
         string = "<xml do='0'>uno<a re='1' mi='2'>dos<b fa='3'/>tres<c>true</c>quatro</a>cinqo<d>seis<e/></d></xml>";
@@ -767,7 +772,7 @@ public class Test extends TestCase {
                 "  ],\n" +
                 "  \"empty\": \"\"\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<mapping><empty/><class><field><bind-xml><node>attribute</node><name>ID</name></bind-xml><name>ID</name><type>string</type></field><field><name>FirstName</name><type>FirstName</type></field><field><name>MI</name><type>MI</type></field><field><name>LastName</name><type>LastName</type></field><name>Customer</name></class><class><field><bind-xml><node>text</node><name>text</name></bind-xml><name>text</name></field><name>FirstName</name></class><class><field><bind-xml><node>text</node><name>text</name></bind-xml><name>text</name></field><name>MI</name></class><class><field><bind-xml><node>text</node><name>text</name></bind-xml><name>text</name></field><name>LastName</name></class></mapping>",
+        assertEquals("<mapping><empty/><class><name>Customer</name><field><name>ID</name><type>string</type><bind-xml><name>ID</name><node>attribute</node></bind-xml></field><field><name>FirstName</name><type>FirstName</type></field><field><name>MI</name><type>MI</type></field><field><name>LastName</name><type>LastName</type></field></class><class><name>FirstName</name><field><name>text</name><bind-xml><name>text</name><node>text</node></bind-xml></field></class><class><name>MI</name><field><name>text</name><bind-xml><name>text</name><node>text</node></bind-xml></field></class><class><name>LastName</name><field><name>text</name><bind-xml><name>text</name><node>text</node></bind-xml></field></class></mapping>",
                 XML.toString(jsonobject));
         ja = JSONML.toJSONArray(string);
         assertEquals("[\n" +
@@ -858,7 +863,7 @@ public class Test extends TestCase {
                 "        ]\n" +
                 "    ]\n" +
                 "]", ja.toString(4));
-        assertEquals("<mapping><empty/><class name=\"Customer\"><field name=\"ID\" type=\"string\"><bind-xml node=\"attribute\" name=\"ID\"/></field><field name=\"FirstName\" type=\"FirstName\"/><field name=\"MI\" type=\"MI\"/><field name=\"LastName\" type=\"LastName\"/></class><class name=\"FirstName\"><field name=\"text\"><bind-xml node=\"text\" name=\"text\"/></field></class><class name=\"MI\"><field name=\"text\"><bind-xml node=\"text\" name=\"text\"/></field></class><class name=\"LastName\"><field name=\"text\"><bind-xml node=\"text\" name=\"text\"/></field></class></mapping>",
+        assertEquals("<mapping><empty/><class name=\"Customer\"><field name=\"ID\" type=\"string\"><bind-xml name=\"ID\" node=\"attribute\"/></field><field name=\"FirstName\" type=\"FirstName\"/><field name=\"MI\" type=\"MI\"/><field name=\"LastName\" type=\"LastName\"/></class><class name=\"FirstName\"><field name=\"text\"><bind-xml name=\"text\" node=\"text\"/></field></class><class name=\"MI\"><field name=\"text\"><bind-xml name=\"text\" node=\"text\"/></field></class><class name=\"LastName\"><field name=\"text\"><bind-xml name=\"text\" node=\"text\"/></field></class></mapping>",
                 JSONML.toString(ja));
 
         jsonobject = XML.toJSONObject("<?xml version=\"1.0\" ?><Book Author=\"Anonymous\"><Title>Sample Book</Title><Chapter id=\"1\">This is chapter 1. It is not very long or interesting.</Chapter><Chapter id=\"2\">This is chapter 2. Although it is longer than chapter 1, it is not any more interesting.</Chapter></Book>");
@@ -876,7 +881,7 @@ public class Test extends TestCase {
                 "  ],\n" +
                 "  \"Title\": \"Sample Book\"\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<Book><Chapter>This is chapter 1. It is not very long or interesting.<id>1</id></Chapter><Chapter>This is chapter 2. Although it is longer than chapter 1, it is not any more interesting.<id>2</id></Chapter><Author>Anonymous</Author><Title>Sample Book</Title></Book>",
+        assertEquals("<Book><Author>Anonymous</Author><Title>Sample Book</Title><Chapter><id>1</id>This is chapter 1. It is not very long or interesting.</Chapter><Chapter><id>2</id>This is chapter 2. Although it is longer than chapter 1, it is not any more interesting.</Chapter></Book>",
                 XML.toString(jsonobject));
 
         jsonobject = XML.toJSONObject("<!DOCTYPE bCard 'http://www.cs.caltech.edu/~adam/schemas/bCard'><bCard><?xml default bCard        firstname = ''        lastname  = '' company   = '' email = '' homepage  = ''?><bCard        firstname = 'Rohit'        lastname  = 'Khare'        company   = 'MCI'        email     = 'khare@mci.net'        homepage  = 'http://pest.w3.org/'/><bCard        firstname = 'Adam'        lastname  = 'Rifkin'        company   = 'Caltech Infospheres Project'        email     = 'adam@cs.caltech.edu'        homepage  = 'http://www.cs.caltech.edu/~adam/'/></bCard>");
@@ -896,7 +901,7 @@ public class Test extends TestCase {
                 "    \"lastname\": \"Rifkin\"\n" +
                 "  }\n" +
                 "]}}", jsonobject.toString(2));
-        assertEquals("<bCard><bCard><email>khare@mci.net</email><company>MCI</company><lastname>Khare</lastname><firstname>Rohit</firstname><homepage>http://pest.w3.org/</homepage></bCard><bCard><email>adam@cs.caltech.edu</email><company>Caltech Infospheres Project</company><lastname>Rifkin</lastname><firstname>Adam</firstname><homepage>http://www.cs.caltech.edu/~adam/</homepage></bCard></bCard>",
+        assertEquals("<bCard><bCard><firstname>Rohit</firstname><lastname>Khare</lastname><company>MCI</company><email>khare@mci.net</email><homepage>http://pest.w3.org/</homepage></bCard><bCard><firstname>Adam</firstname><lastname>Rifkin</lastname><company>Caltech Infospheres Project</company><email>adam@cs.caltech.edu</email><homepage>http://www.cs.caltech.edu/~adam/</homepage></bCard></bCard>",
                 XML.toString(jsonobject));
 
         jsonobject = XML.toJSONObject("<?xml version=\"1.0\"?><customer>    <firstName>        <text>Fred</text>    </firstName>    <ID>fbs0001</ID>    <lastName> <text>Scerbo</text>    </lastName>    <MI>        <text>B</text>    </MI></customer>");
@@ -906,13 +911,13 @@ public class Test extends TestCase {
                 "  \"firstName\": {\"text\": \"Fred\"},\n" +
                 "  \"lastName\": {\"text\": \"Scerbo\"}\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<customer><lastName><text>Scerbo</text></lastName><MI><text>B</text></MI><ID>fbs0001</ID><firstName><text>Fred</text></firstName></customer>",
+        assertEquals("<customer><firstName><text>Fred</text></firstName><ID>fbs0001</ID><lastName><text>Scerbo</text></lastName><MI><text>B</text></MI></customer>",
                 XML.toString(jsonobject));
 
         jsonobject = XML.toJSONObject("<!ENTITY tp-address PUBLIC '-//ABC University::Special Collections Library//TEXT (titlepage: name and address)//EN' 'tpspcoll.sgm'><list type='simple'><head>Repository Address </head><item>Special Collections Library</item><item>ABC University</item><item>Main Library, 40 Circle Drive</item><item>Ourtown, Pennsylvania</item><item>17654 USA</item></list>");
-        assertEquals("{\"list\":{\"item\":[\"Special Collections Library\",\"ABC University\",\"Main Library, 40 Circle Drive\",\"Ourtown, Pennsylvania\",\"17654 USA\"],\"head\":\"Repository Address\",\"type\":\"simple\"}}",
+        assertEquals("{\"list\":{\"type\":\"simple\",\"head\":\"Repository Address\",\"item\":[\"Special Collections Library\",\"ABC University\",\"Main Library, 40 Circle Drive\",\"Ourtown, Pennsylvania\",\"17654 USA\"]}}",
                 jsonobject.toString());
-        assertEquals("<list><item>Special Collections Library</item><item>ABC University</item><item>Main Library, 40 Circle Drive</item><item>Ourtown, Pennsylvania</item><item>17654 USA</item><head>Repository Address</head><type>simple</type></list>",
+        assertEquals("<list><type>simple</type><head>Repository Address</head><item>Special Collections Library</item><item>ABC University</item><item>Main Library, 40 Circle Drive</item><item>Ourtown, Pennsylvania</item><item>17654 USA</item></list>",
                 XML.toString(jsonobject));
 
         jsonobject = XML.toJSONObject("<test intertag status=ok><empty/>deluxe<blip sweet=true>&amp;&quot;toot&quot;&toot;&#x41;</blip><x>eks</x><w>bonus</w><w>bonus2</w></test>");
@@ -931,7 +936,7 @@ public class Test extends TestCase {
                 "  ],\n" +
                 "  \"x\": \"eks\"\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<test><w>bonus</w><w>bonus2</w>deluxe<intertag/><status>ok</status><blip>&amp;&quot;toot&quot;&amp;toot;&amp;#x41;<sweet>true</sweet></blip><empty/><x>eks</x></test>",
+        assertEquals("<test><intertag/><status>ok</status><empty/>deluxe<blip><sweet>true</sweet>&amp;&quot;toot&quot;&amp;toot;&amp;#x41;</blip><x>eks</x><w>bonus</w><w>bonus2</w></test>",
                 XML.toString(jsonobject));
 
         jsonobject = HTTP.toJSONObject("GET / HTTP/1.0\nAccept: image/gif, image/x-xbitmap, image/jpeg, image/pjpeg, application/vnd.ms-powerpoint, application/vnd.ms-excel, application/msword, */*\nAccept-Language: en-us\nUser-Agent: Mozilla/4.0 (compatible; MSIE 5.5; Windows 98; Win 9x 4.90; T312461; Q312461)\nHost: www.nokko.com\nConnection: keep-alive\nAccept-encoding: gzip, deflate\n");
@@ -947,12 +952,12 @@ public class Test extends TestCase {
                 "  \"User-Agent\": \"Mozilla/4.0 (compatible; MSIE 5.5; Windows 98; Win 9x 4.90; T312461; Q312461)\"\n" +
                 "}", jsonobject.toString(2));
         assertEquals("GET \"/\" HTTP/1.0\r\n" +
+                "Accept: image/gif, image/x-xbitmap, image/jpeg, image/pjpeg, application/vnd.ms-powerpoint, application/vnd.ms-excel, application/msword, */*\r\n" +
                 "Accept-Language: en-us\r\n" +
-                "Host: www.nokko.com\r\n" +
-                "Accept-encoding: gzip, deflate\r\n" +
                 "User-Agent: Mozilla/4.0 (compatible; MSIE 5.5; Windows 98; Win 9x 4.90; T312461; Q312461)\r\n" +
+                "Host: www.nokko.com\r\n" +
                 "Connection: keep-alive\r\n" +
-                "Accept: image/gif, image/x-xbitmap, image/jpeg, image/pjpeg, application/vnd.ms-powerpoint, application/vnd.ms-excel, application/msword, */*\r\n\r\n",
+                "Accept-encoding: gzip, deflate\r\n\r\n",
                 HTTP.toString(jsonobject));
 
         jsonobject = HTTP.toJSONObject("HTTP/1.1 200 Oki Doki\nDate: Sun, 26 May 2002 17:38:52 GMT\nServer: Apache/1.3.23 (Unix) mod_perl/1.26\nKeep-Alive: timeout=15, max=100\nConnection: Keep-Alive\nTransfer-Encoding: chunked\nContent-Type: text/html\n");
@@ -968,12 +973,12 @@ public class Test extends TestCase {
                 "  \"Transfer-Encoding\": \"chunked\"\n" +
                 "}", jsonobject.toString(2));
         assertEquals("HTTP/1.1 200 Oki Doki\r\n" +
-                "Transfer-Encoding: chunked\r\n" +
                 "Date: Sun, 26 May 2002 17:38:52 GMT\r\n" +
+                "Server: Apache/1.3.23 (Unix) mod_perl/1.26\r\n" +
                 "Keep-Alive: timeout=15, max=100\r\n" +
-                "Content-Type: text/html\r\n" +
                 "Connection: Keep-Alive\r\n" +
-                "Server: Apache/1.3.23 (Unix) mod_perl/1.26\r\n\r\n",
+                "Transfer-Encoding: chunked\r\n" +
+                "Content-Type: text/html\r\n\r\n",
                 HTTP.toString(jsonobject));
 
         jsonobject = new JSONObject("{nix: null, nux: false, null: 'null', 'Request-URI': '/', Method: 'GET', 'HTTP-Version': 'HTTP/1.0'}");
@@ -987,7 +992,7 @@ public class Test extends TestCase {
                 "}", jsonobject.toString(2));
         assertTrue(jsonobject.isNull("nix"));
         assertTrue(jsonobject.has("nix"));
-        assertEquals("<Request-URI>/</Request-URI><nix>null</nix><nux>false</nux><Method>GET</Method><HTTP-Version>HTTP/1.0</HTTP-Version><null>null</null>",
+        assertEquals("<nix>null</nix><nux>false</nux><null>null</null><Request-URI>/</Request-URI><Method>GET</Method><HTTP-Version>HTTP/1.0</HTTP-Version>",
                 XML.toString(jsonobject));
         assertEquals("GET \"/\" HTTP/1.0\r\n" +
                 "nux: false\r\n" +
@@ -1057,7 +1062,7 @@ public class Test extends TestCase {
                 "  \"xmlns:xsi\": \"http://www.w3.org/1999/XMLSchema-instance\"\n" +
                 "}}", jsonobject.toString(2));
 
-        assertEquals("<SOAP-ENV:Envelope><SOAP-ENV:Body><ns1:doGoogleSearch><oe>latin1<xsi:type>xsd:string</xsi:type></oe><SOAP-ENV:encodingStyle>http://schemas.xmlsoap.org/soap/encoding/</SOAP-ENV:encodingStyle><lr><xsi:type>xsd:string</xsi:type></lr><start>0<xsi:type>xsd:int</xsi:type></start><q>'+search+'<xsi:type>xsd:string</xsi:type></q><ie>latin1<xsi:type>xsd:string</xsi:type></ie><safeSearch>false<xsi:type>xsd:boolean</xsi:type></safeSearch><xmlns:ns1>urn:GoogleSearch</xmlns:ns1><restrict><xsi:type>xsd:string</xsi:type></restrict><filter>true<xsi:type>xsd:boolean</xsi:type></filter><maxResults>10<xsi:type>xsd:int</xsi:type></maxResults><key>GOOGLEKEY<xsi:type>xsd:string</xsi:type></key></ns1:doGoogleSearch></SOAP-ENV:Body><xmlns:xsd>http://www.w3.org/1999/XMLSchema</xmlns:xsd><xmlns:xsi>http://www.w3.org/1999/XMLSchema-instance</xmlns:xsi><xmlns:SOAP-ENV>http://schemas.xmlsoap.org/soap/envelope/</xmlns:SOAP-ENV></SOAP-ENV:Envelope>",
+        assertEquals("<SOAP-ENV:Envelope><xmlns:SOAP-ENV>http://schemas.xmlsoap.org/soap/envelope/</xmlns:SOAP-ENV><xmlns:xsi>http://www.w3.org/1999/XMLSchema-instance</xmlns:xsi><xmlns:xsd>http://www.w3.org/1999/XMLSchema</xmlns:xsd><SOAP-ENV:Body><ns1:doGoogleSearch><xmlns:ns1>urn:GoogleSearch</xmlns:ns1><SOAP-ENV:encodingStyle>http://schemas.xmlsoap.org/soap/encoding/</SOAP-ENV:encodingStyle><key><xsi:type>xsd:string</xsi:type>GOOGLEKEY</key><q><xsi:type>xsd:string</xsi:type>'+search+'</q><start><xsi:type>xsd:int</xsi:type>0</start><maxResults><xsi:type>xsd:int</xsi:type>10</maxResults><filter><xsi:type>xsd:boolean</xsi:type>true</filter><restrict><xsi:type>xsd:string</xsi:type></restrict><safeSearch><xsi:type>xsd:boolean</xsi:type>false</safeSearch><lr><xsi:type>xsd:string</xsi:type></lr><ie><xsi:type>xsd:string</xsi:type>latin1</ie><oe><xsi:type>xsd:string</xsi:type>latin1</oe></ns1:doGoogleSearch></SOAP-ENV:Body></SOAP-ENV:Envelope>",
                 XML.toString(jsonobject));
 
         jsonobject = new JSONObject("{Envelope: {Body: {\"ns1:doGoogleSearch\": {oe: \"latin1\", filter: true, q: \"'+search+'\", key: \"GOOGLEKEY\", maxResults: 10, \"SOAP-ENV:encodingStyle\": \"http://schemas.xmlsoap.org/soap/encoding/\", start: 0, ie: \"latin1\", safeSearch:false, \"xmlns:ns1\": \"urn:GoogleSearch\"}}}}");
@@ -1073,7 +1078,7 @@ public class Test extends TestCase {
                 "  \"start\": 0,\n" +
                 "  \"xmlns:ns1\": \"urn:GoogleSearch\"\n" +
                 "}}}}", jsonobject.toString(2));
-        assertEquals("<Envelope><Body><ns1:doGoogleSearch><oe>latin1</oe><SOAP-ENV:encodingStyle>http://schemas.xmlsoap.org/soap/encoding/</SOAP-ENV:encodingStyle><start>0</start><q>'+search+'</q><ie>latin1</ie><safeSearch>false</safeSearch><xmlns:ns1>urn:GoogleSearch</xmlns:ns1><maxResults>10</maxResults><key>GOOGLEKEY</key><filter>true</filter></ns1:doGoogleSearch></Body></Envelope>",
+        assertEquals("<Envelope><Body><ns1:doGoogleSearch><oe>latin1</oe><filter>true</filter><q>'+search+'</q><key>GOOGLEKEY</key><maxResults>10</maxResults><SOAP-ENV:encodingStyle>http://schemas.xmlsoap.org/soap/encoding/</SOAP-ENV:encodingStyle><start>0</start><ie>latin1</ie><safeSearch>false</safeSearch><xmlns:ns1>urn:GoogleSearch</xmlns:ns1></ns1:doGoogleSearch></Body></Envelope>",
                 XML.toString(jsonobject));
 
         jsonobject = CookieList.toJSONObject("  f%oo = b+l=ah  ; o;n%40e = t.wo ");
@@ -1081,7 +1086,7 @@ public class Test extends TestCase {
                 "  \"f%oo\": \"b l=ah\",\n" +
                 "  \"o;n@e\": \"t.wo\"\n" +
                 "}", jsonobject.toString(2));
-        assertEquals("o%3bn@e=t.wo;f%25oo=b l%3dah",
+        assertEquals("f%25oo=b l%3dah;o%3bn@e=t.wo",
                 CookieList.toString(jsonobject));
 
         jsonobject = Cookie.toJSONObject("f%oo=blah; secure ;expires = April 24, 2002");
@@ -1100,21 +1105,21 @@ public class Test extends TestCase {
 
         JSONTokener jsontokener = new JSONTokener("{op:'test', to:'session', pre:1}{op:'test', to:'session', pre:2}");
         jsonobject = new JSONObject(jsontokener);
-        assertEquals("{\"to\":\"session\",\"op\":\"test\",\"pre\":1}",
+        assertEquals("{\"op\":\"test\",\"to\":\"session\",\"pre\":1}",
                 jsonobject.toString());
         assertEquals(1, jsonobject.optInt("pre"));
         int i = jsontokener.skipTo('{');
         assertEquals(123, i);
         jsonobject = new JSONObject(jsontokener);
-        assertEquals("{\"to\":\"session\",\"op\":\"test\",\"pre\":2}",
+        assertEquals("{\"op\":\"test\",\"to\":\"session\",\"pre\":2}",
                 jsonobject.toString());
 
         jsonarray = CDL.toJSONArray("Comma delimited list test, '\"Strip\"Quotes', 'quote, comma', No quotes, 'Single Quotes', \"Double Quotes\"\n1,'2',\"3\"\n,'It is \"good,\"', \"It works.\"\n\n");
 
         string = CDL.toString(jsonarray);
-        assertEquals("\"quote, comma\",\"StripQuotes\",Comma delimited list test\n" +
-                "3,2,1\n" +
-                "It works.,\"It is good,\",\n",
+        assertEquals("Comma delimited list test,\"StripQuotes\",\"quote, comma\"\n" +
+                "1,2,3\n" +
+                ",\"It is good,\",It works.\n",
                 string);
         assertEquals("[\n" +
                 "    {\n" +
@@ -1184,7 +1189,7 @@ public class Test extends TestCase {
                 "    \"oct\": 666\n" +
                 "}", jsonobject.toString(4));
 
-        assertEquals("[[\"<escape>\",\"next is an implied null\",null,\"ok\"],{\"oct\":666,\"dec\":666,\"hex\":1638}]",
+        assertEquals("[[\"<escape>\",\"next is an implied null\",null,\"ok\"],{\"dec\":666,\"oct\":666,\"hex\":1638}]",
                 new JSONStringer().array().value(jsonarray).value(jsonobject).endArray().toString());
 
         jsonobject = new JSONObject("{string: \"98.6\", long: 2147483648, int: 2147483647, longer: 9223372036854775807, double: 9223372036854775808}");
@@ -1298,7 +1303,7 @@ public class Test extends TestCase {
                 "    ],\n" +
                 "    \"empty\": \"\"\n" +
                 "}}", jsonobject.toString(4));
-        assertEquals("<xml><a/><a>1</a><a>22</a><a>333</a><empty/></xml>",
+        assertEquals("<xml><empty/><a/><a>1</a><a>22</a><a>333</a></xml>",
                 XML.toString(jsonobject));
 
         string = "<book><chapter>Content of the first chapter</chapter><chapter>Content of the second chapter      <chapter>Content of the first subchapter</chapter>      <chapter>Content of the second subchapter</chapter></chapter><chapter>Third Chapter</chapter></book>";
@@ -1429,7 +1434,7 @@ public class Test extends TestCase {
                 "  \"ichi\": 1,\n" +
                 "  \"ni\": 2\n" +
                 "}}", jsonobject.toString(2));
-        assertEquals("<a><f/>and<d>do</d><d>re</d><d>mi</d><ichi>1</ichi><e/><b>The content of b</b><c>The content of c<san>3</san></c><ni>2</ni></a>",
+        assertEquals("<a><ichi>1</ichi><ni>2</ni><b>The content of b</b>and<c><san>3</san>The content of c</c><d>do</d><d>re</d><d>mi</d><e/><f/></a>",
                 XML.toString(jsonobject));
         ja = JSONML.toJSONArray(string);
         assertEquals("[\n" +
@@ -1468,7 +1473,7 @@ public class Test extends TestCase {
 
         string = "<Root><MsgType type=\"node\"><BatchType type=\"string\">111111111111111</BatchType></MsgType></Root>";
         jsonobject = JSONML.toJSONObject(string);
-        assertEquals("{\"tagName\":\"Root\",\"childNodes\":[{\"tagName\":\"MsgType\",\"childNodes\":[{\"tagName\":\"BatchType\",\"childNodes\":[111111111111111],\"type\":\"string\"}],\"type\":\"node\"}]}",
+        assertEquals("{\"tagName\":\"Root\",\"childNodes\":[{\"tagName\":\"MsgType\",\"type\":\"node\",\"childNodes\":[{\"tagName\":\"BatchType\",\"type\":\"string\",\"childNodes\":[111111111111111]}]}]}",
                 jsonobject.toString());
         ja = JSONML.toJSONArray(string);
         assertEquals("[\"Root\",[\"MsgType\",{\"type\":\"node\"},[\"BatchType\",{\"type\":\"string\"},111111111111111]]]",
@@ -1631,6 +1636,1454 @@ public class Test extends TestCase {
         }
     }
 
+    public void testTokener() throws Exception {
+        JSONTokener x;
+        String string;
+
+        string = "{\"a\": \"one\\ttwo\", 'b': [1, 2.5, \"\\u0041\"], c: null}";
+        assertEquals(new JSONObject(new JSONTokener(new java.io.StringReader(string))).toString(),
+                new JSONObject(new JSONTokener(string)).toString());
+        char[] chars = ("xx" + string + "yy").toCharArray();
+        assertEquals(new JSONObject(string).toString(),
+                new JSONObject(new JSONTokener(chars, 2, string.length())).toString());
+
+        string = "[\n\r\n\r}";
+        try {
+            new JSONArray(new JSONTokener(new java.io.StringReader(string)));
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Missing value at 5 [character 0 line 4]", jsone.getMessage());
+        }
+        try {
+            new JSONArray(string);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Missing value at 5 [character 0 line 4]", jsone.getMessage());
+        }
+
+        x = new JSONTokener("abc\ndef");
+        assertEquals('a', x.next());
+        assertEquals(0, x.skipTo('z'));
+        assertEquals(" at 1 [character 2 line 1]", x.toString());
+        assertEquals('e', x.skipTo('e'));
+        assertEquals(" at 5 [character 1 line 2]", x.toString());
+        assertEquals('e', x.next());
+        x.back();
+        assertEquals('e', x.next());
+        assertEquals('f', x.next());
+        assertFalse(x.more());
+    }
+
+
+    public void testUTF8Tokener() throws Exception {
+        String string = "{\"name\": \"caf\u00e9 \u20ac \ud834\udd1e\", \"list\": [\"\u00fc\", 2]}";
+        byte[] bytes = string.getBytes("UTF-8");
+        String expected = new JSONObject(string).toString();
+
+        assertEquals(expected, new JSONObject(new JSONTokener(bytes)).toString());
+
+        byte[] padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        assertEquals(expected,
+                new JSONObject(new JSONTokener(padded, 2, bytes.length)).toString());
+
+        java.nio.ByteBuffer direct = java.nio.ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.put((byte)0xEF).put((byte)0xBB).put((byte)0xBF).put(bytes).flip();
+        assertEquals(expected, new JSONObject(new JSONTokener(direct)).toString());
+        assertEquals(0, direct.position());
+
+        java.nio.ByteBuffer slice = java.nio.ByteBuffer.wrap(padded, 2,
+                bytes.length).slice();
+        assertEquals(expected, new JSONObject(new JSONTokener(slice)).toString());
+        bytes = "[\"ab\\tcd\", \"\", \"ef\"]".getBytes("UTF-8");
+        assertEquals("[\"ab\\tcd\",\"\",\"ef\"]",
+                new JSONArray(new JSONTokener(bytes)).toString());
+
+        try {
+            new JSONArray(new JSONTokener(new byte[] {'[', '"', (byte)0xC3, '"', ']'}));
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Malformed UTF-8 at 2 [character 3 line 1]", jsone.getMessage());
+        }
+    }
+
+
+    public void testFileTokener() throws Exception {
+        String string = "[{\"a\": \"\u00e9t\u00e9\"}, {\"b\": [true, null, 3]}]";
+        byte[] bytes = string.getBytes("UTF-8");
+        String expected = new JSONArray(string).toString();
+
+        java.io.File file = java.io.File.createTempFile("json", ".json");
+        try {
+            java.io.FileOutputStream out = new java.io.FileOutputStream(file);
+            out.write(bytes);
+            out.close();
+            assertEquals(expected, new JSONArray(new JSONTokener(file)).toString());
+        } finally {
+            file.delete();
+        }
+
+// Split the text in the middle of a two byte character.
+
+        int split = string.indexOf('\u00e9') + 1;
+        java.nio.ByteBuffer[] buffers = {
+            java.nio.ByteBuffer.wrap(bytes, 0, split),
+            java.nio.ByteBuffer.allocate(0),
+            java.nio.ByteBuffer.wrap(bytes, split, bytes.length - split).slice()
+        };
+        assertEquals(expected, new JSONArray(new JSONTokener(buffers)).toString());
+
+// Start the position just short of 2^31, as if that many characters of a
+// large mapped file had already been read, and read past it.
+
+        buffers = new java.nio.ByteBuffer[] {
+            java.nio.ByteBuffer.wrap("[    ".getBytes("UTF-8")),
+            java.nio.ByteBuffer.wrap("    1]".getBytes("UTF-8"))
+        };
+        JSONTokener x = new JSONTokener(buffers);
+        java.lang.reflect.Field field =
+            JSONTokener.class.getDeclaredField("index");
+        field.setAccessible(true);
+        field.setLong(x, Integer.MAX_VALUE - 4);
+        field = JSONTokener.class.getDeclaredField("character");
+        field.setAccessible(true);
+        field.setLong(x, Integer.MAX_VALUE - 3);
+        assertEquals('[', x.nextClean());
+        assertEquals('1', x.nextClean());
+        x.back();
+        assertEquals(" at 2147483652 [character 2147483653 line 1]",
+                x.toString());
+        assertEquals(new Integer(1), x.nextValue());
+        assertEquals(']', x.nextClean());
+        x.back();
+        assertEquals(']', x.nextClean());
+        assertEquals(" at 2147483654 [character 2147483655 line 1]",
+                x.toString());
+    }
+
+
+    public void testReader() throws Exception {
+        JSONReader reader;
+        StringBuffer sb;
+        String string = "{\"a\": [1, 2.5, , \"x\"], 'b' : {\"c\": null, d: true}; \"e\": [{\"f\": 1}, {\"f\": 2}]}";
+
+        reader = new JSONReader(new JSONTokener(string));
+        sb = new StringBuffer();
+        int token;
+        while ((token = reader.next()) != JSONReader.END_DOCUMENT) {
+            sb.append(token);
+            if (reader.getValue() != null) {
+                sb.append('=').append(reader.getValue());
+            }
+            sb.append(' ');
+        }
+        assertEquals("1 5=a 3 7=1 7=2.5 9=null 6=x 4 5=b 1 5=c 9=null 5=d 8=true 2 5=e 3 1 5=f 7=1 2 1 5=f 7=2 2 4 2 ",
+                sb.toString());
+
+        reader = new JSONReader(new JSONTokener(string));
+        assertEquals(JSONReader.START_OBJECT, reader.next());
+        assertEquals(JSONReader.KEY, reader.next());
+        assertEquals(JSONReader.START_ARRAY, reader.next());
+        reader.skipChildren();
+        assertEquals(JSONReader.END_ARRAY, reader.getToken());
+        assertEquals(JSONReader.KEY, reader.next());
+        assertEquals(JSONReader.START_OBJECT, reader.next());
+        JSONObject jsonobject = reader.readJSONObject();
+        assertEquals(2, jsonobject.length());
+        assertTrue(jsonobject.isNull("c"));
+        assertTrue(jsonobject.getBoolean("d"));
+        assertEquals(1, reader.getDepth());
+        assertEquals(JSONReader.KEY, reader.next());
+        assertEquals("e", reader.getValue());
+        assertEquals(JSONReader.START_ARRAY, reader.next());
+        sb = new StringBuffer();
+        while (reader.next() == JSONReader.START_OBJECT) {
+            sb.append(reader.readJSONObject().getInt("f"));
+        }
+        assertEquals("12", sb.toString());
+        assertEquals(JSONReader.END_ARRAY, reader.getToken());
+        assertEquals(JSONReader.END_OBJECT, reader.next());
+        assertEquals(JSONReader.END_DOCUMENT, reader.next());
+
+        try {
+            reader = new JSONReader(new JSONTokener("[1}"));
+            while (reader.next() != JSONReader.END_DOCUMENT) {
+            }
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Expected a ',' or ']' at 3 [character 4 line 1]", jsone.getMessage());
+        }
+    }
+
+
+    public void testLazy() throws Exception {
+        JSONObject jsonobject;
+        JSONTokener x;
+        String string = "{\"id\": 7, \"name\": \"seven\", \"tags\": [\"a\", \"b\"], \"child\": {\"n\": 1.50}}";
+
+        x = new JSONTokener(string);
+        x.setLazy(true);
+        jsonobject = new JSONObject(x);
+        assertEquals(string, jsonobject.toString());
+        assertEquals(7, jsonobject.getInt("id"));
+        assertEquals("seven", jsonobject.getString("name"));
+        assertEquals(string, jsonobject.toString());
+        StringWriter writer = new StringWriter();
+        jsonobject.write(writer);
+        assertEquals(string, writer.toString());
+
+        JSONObject child = jsonobject.getJSONObject("child");
+        assertEquals("{\"n\": 1.50}", child.toString());
+        child.put("n", 2);
+        assertEquals("{\"n\":2}", child.toString());
+        assertEquals("{\"n\":2}", jsonobject.getJSONObject("child").toString());
+        assertEquals(new JSONObject(jsonobject.toString()).toString(4),
+                jsonobject.toString(4));
+        assertEquals("b", jsonobject.getJSONArray("tags").getString(1));
+
+        x = new JSONTokener("{'id': 7, name: seven, \"esc\": \"a\\'b\",}");
+        x.setLazy(true);
+        jsonobject = new JSONObject(x);
+        assertEquals(new JSONObject(jsonobject.toString()).toString(4),
+                jsonobject.toString(4));
+        assertEquals("a'b", jsonobject.getString("esc"));
+
+        x = new JSONTokener("{\"a\":{\"x\":1},\"b\":2}");
+        x.setLazy(true);
+        jsonobject = new JSONObject(x);
+        Iterator keys = jsonobject.keys();
+        while (keys.hasNext()) {
+            if ("b".equals(keys.next())) {
+                keys.remove();
+            }
+        }
+        assertEquals(1, jsonobject.length());
+        assertEquals("{\"a\":{\"x\":1}}", jsonobject.toString());
+
+        string = "{\"s\":\"</script>\",\"</\":\"\u0085\u2028\"}";
+        x = new JSONTokener(string);
+        x.setLazy(true);
+        assertEquals(new JSONObject(string).toString(),
+                new JSONObject(x).toString());
+        x = new JSONTokener("{\"s\":\"</script>\"}");
+        x.setLazy(true);
+        assertEquals("{\"s\":\"<\\/script>\"}", new JSONObject(x).toString());
+
+        try {
+            x = new JSONTokener("{\"a\": [1, \"\\q\"]}");
+            x.setLazy(true);
+            new JSONObject(x);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Illegal escape. at 13 [character 14 line 1]", jsone.getMessage());
+        }
+        try {
+            new JSONObject("{\"a\": [1, \"\\q\"]}");
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("Illegal escape. at 13 [character 14 line 1]", jsone.getMessage());
+        }
+
+        x = new JSONTokener("{\"a\": {\"b\": 1E400}}");
+        x.setLazy(true);
+        assertEquals(null, new JSONObject(x).toString());
+        x = new JSONTokener("{\"c\": [1.5e300]}");
+        x.setLazy(true);
+        assertEquals("{\"c\": [1.5e300]}", new JSONObject(x).toString());
+
+        JSONKeyCache cache = new JSONKeyCache();
+        x = new JSONTokener("[{\"name\": {\"id\": 1}}, {\"name\": {\"id\": 2}}]");
+        x.setLazy(true);
+        x.setKeyCache(cache);
+        JSONArray jsonarray = new JSONArray(x);
+        JSONObject first = jsonarray.getJSONObject(0).getJSONObject("name");
+        JSONObject second = jsonarray.getJSONObject(1).getJSONObject("name");
+        assertEquals(2, second.getInt("id"));
+        assertTrue(first.keys().next() == second.keys().next());
+        java.lang.reflect.Field field =
+            JSONObject.class.getDeclaredField("map");
+        field.setAccessible(true);
+        Object map = field.get(first);
+        Object other = field.get(second);
+        field = CompactMap.class.getDeclaredField("keys");
+        field.setAccessible(true);
+        assertTrue(field.get(map) == field.get(other));
+    }
+
+
+    public void testStringToValue() throws Exception {
+        assertEquals(new Integer(42), JSONObject.stringToValue("42"));
+        assertEquals(new Integer(-7), JSONObject.stringToValue("-7"));
+        assertEquals(new Integer(5), JSONObject.stringToValue("+5"));
+        assertEquals(new Long(2147483648L),
+                JSONObject.stringToValue("2147483648"));
+        assertEquals(new Long(Long.MIN_VALUE),
+                JSONObject.stringToValue("-9223372036854775808"));
+        assertEquals("9223372036854775808",
+                JSONObject.stringToValue("9223372036854775808"));
+        assertEquals(new Integer(255), JSONObject.stringToValue("0xFF"));
+        assertEquals(new Long(4294967295L),
+                JSONObject.stringToValue("04294967295"));
+        assertEquals("0x0x", JSONObject.stringToValue("0x0x"));
+        assertEquals(new Double(1.5), JSONObject.stringToValue("1.5"));
+        assertEquals(new Double(0.5), JSONObject.stringToValue(".5"));
+        assertEquals(new Double(2.0), JSONObject.stringToValue("2."));
+        assertEquals(new Double(-1e10), JSONObject.stringToValue("-1E10"));
+        assertEquals(new Double(3.0), JSONObject.stringToValue("3.0d"));
+        assertEquals("1.2.3", JSONObject.stringToValue("1.2.3"));
+        assertEquals("1e", JSONObject.stringToValue("1e"));
+        assertEquals(".", JSONObject.stringToValue("."));
+        assertEquals("-", JSONObject.stringToValue("-"));
+        assertEquals("12ab", JSONObject.stringToValue("12ab"));
+        assertSame(JSONObject.stringToValue("100"),
+                JSONObject.stringToValue("100"));
+
+        assertEquals("0", XML.stringToValue("0"));
+        assertEquals(new Integer(-12), XML.stringToValue("-12"));
+        assertEquals("007", XML.stringToValue("007"));
+        assertEquals("-00", XML.stringToValue("-00"));
+        assertEquals("+5", XML.stringToValue("+5"));
+        assertEquals("1e5", XML.stringToValue("1e5"));
+        assertEquals(new Double(1.25), XML.stringToValue("1.25"));
+        assertEquals(new Double(100.0), XML.stringToValue("1.0e2"));
+        assertEquals("1.2.3", XML.stringToValue("1.2.3"));
+        assertEquals("-", XML.stringToValue("-"));
+
+        JSONArray jsonarray = new JSONArray("[1.2.3, 12, 4.5, 1e400, abc]");
+        assertEquals("1.2.3", jsonarray.get(0));
+        assertEquals(new Integer(12), jsonarray.get(1));
+        assertEquals(4.5, jsonarray.getDouble(2), 0);
+        assertTrue(Double.isInfinite(((Double)jsonarray.get(3)).doubleValue()));
+        assertEquals("abc", jsonarray.get(4));
+    }
+
+
+    public void testNumberToString() throws Exception {
+        assertEquals("0", JSONObject.doubleToString(0.0));
+        assertEquals("-0", JSONObject.doubleToString(-0.0));
+        assertEquals("100", JSONObject.doubleToString(100.0));
+        assertEquals("0.1", JSONObject.doubleToString(0.1));
+        assertEquals("0.001", JSONObject.doubleToString(0.001));
+        assertEquals("1.0E-4", JSONObject.doubleToString(0.0001));
+        assertEquals("9999999", JSONObject.doubleToString(9999999.0));
+        assertEquals("1.0E7", JSONObject.doubleToString(1e7));
+        assertEquals("1.23456789E8", JSONObject.doubleToString(123456789.0));
+        assertEquals("1.0E23", JSONObject.doubleToString(1e23));
+        assertEquals("2.82879384806159E17",
+                JSONObject.doubleToString(2.82879384806159E17));
+        assertEquals("4.9E-324", JSONObject.doubleToString(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308",
+                JSONObject.doubleToString(Double.MAX_VALUE));
+        assertEquals("null", JSONObject.doubleToString(Double.NaN));
+        assertEquals("0.3", JSONObject.numberToString(new Double(0.3)));
+        assertEquals("0.1", JSONObject.numberToString(new Float(0.1f)));
+        assertEquals("3.4028235E38",
+                JSONObject.numberToString(new Float(Float.MAX_VALUE)));
+        assertEquals("1.1754944E-38",
+                JSONObject.numberToString(new Float(1.17549435E-38f)));
+        assertEquals("12", JSONObject.numberToString(new Integer(12)));
+        assertEquals("1.5",
+                JSONObject.numberToString(new java.math.BigDecimal("1.50")));
+
+        java.util.Random random = new java.util.Random(1);
+        for (int i = 0; i < 10000; i += 1) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+                assertEquals(d, Double.parseDouble(JSONObject.doubleToString(d)),
+                        0);
+            }
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(f) && !Float.isInfinite(f)) {
+                assertEquals(f, Float.parseFloat(
+                        JSONObject.numberToString(new Float(f))), 0);
+            }
+        }
+
+        JSONArray jsonarray = new JSONArray();
+        jsonarray.put(2.5);
+        jsonarray.put(1e-7);
+        jsonarray.put(new Float(0.5f));
+        assertEquals("[2.5,1.0E-7,0.5]",
+                jsonarray.write(new java.io.StringWriter()).toString());
+        assertEquals("[2.5,1.0E-7,0.5]", jsonarray.toString());
+        assertEquals("[0.25]",
+                new JSONStringer().array().value(0.25).endArray().toString());
+        try {
+            new JSONStringer().array().value(Double.NaN);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("JSON does not allow non-finite numbers.",
+                    jsone.getMessage());
+        }
+    }
+
+
+    public void testQuote() throws Exception {
+        assertEquals("\"\"", JSONObject.quote(null));
+        assertEquals("\"\"", JSONObject.quote(""));
+        assertEquals("\"plain text\"", JSONObject.quote("plain text"));
+        assertEquals("\"a\\\"b\\\\c\"", JSONObject.quote("a\"b\\c"));
+        assertEquals("\"<\\/tag> a/b\"", JSONObject.quote("</tag> a/b"));
+        assertEquals("\"/<\\/\"", JSONObject.quote("/</"));
+        assertEquals("\"\\b\\t\\n\\f\\r\\u0000\\u001f\"",
+                JSONObject.quote("\b\t\n\f\r\u0000\u001f"));
+        assertEquals("\"\u007f\\u0080\\u009f\u00a0\"",
+                JSONObject.quote("\u007f\u0080\u009f\u00a0"));
+        assertEquals("\"\u1fff\\u2000\\u20ac\u2100\"",
+                JSONObject.quote("\u1fff\u2000\u20ac\u2100"));
+
+        java.io.StringWriter writer = new java.io.StringWriter();
+        writer.write('[');
+        JSONObject.quote("one\ttwo", writer);
+        writer.write(']');
+        assertEquals("[\"one\\ttwo\"]", writer.toString());
+
+        JSONObject jsonobject = new JSONObject();
+        jsonobject.put("k\"ey", "va</lue");
+        assertEquals("{\"k\\\"ey\":\"va<\\/lue\"}", jsonobject.toString());
+        assertEquals("{\"k\\\"ey\":\"va<\\/lue\"}",
+                jsonobject.write(new java.io.StringWriter()).toString());
+        assertEquals("{\"k\\\"ey\":\"va<\\/lue\"}", new JSONStringer()
+                .object().key("k\"ey").value("va</lue").endObject().toString());
+    }
+
+
+    public void testWriteIndented() throws Exception {
+        JSONObject jsonobject = new JSONObject(
+                "{b: [1, {d: 4, c: [3.5]}, []], a: {}, e: {f: \"g\"}}");
+        String expected = "{\n" +
+                "  \"a\": {},\n" +
+                "  \"b\": [\n" +
+                "    1,\n" +
+                "    {\n" +
+                "      \"c\": [3.5],\n" +
+                "      \"d\": 4\n" +
+                "    },\n" +
+                "    []\n" +
+                "  ],\n" +
+                "  \"e\": {\"f\": \"g\"}\n" +
+                "}";
+        assertEquals(expected, jsonobject.toString(2));
+        assertEquals(expected, jsonobject.write(new java.io.StringWriter(), 2,
+                0).toString());
+        assertEquals(jsonobject.getJSONArray("b").toString(3, 2),
+                jsonobject.getJSONArray("b").write(new java.io.StringWriter(),
+                3, 2).toString());
+
+        JSONObject empty = new JSONObject();
+        Iterator keys = jsonobject.keys();
+        StringBuffer sb = new StringBuffer();
+        while (keys.hasNext()) {
+            String key = (String)keys.next();
+            sb.append(key);
+        }
+        String unsorted = jsonobject.write(new java.io.StringWriter(), 1, 0,
+                false).toString();
+        int at = 0;
+        for (int i = 0; i < sb.length(); i += 1) {
+            int found = unsorted.indexOf("\n \"" + sb.charAt(i) + "\":");
+            assertTrue(found > at);
+            at = found;
+        }
+        assertEquals(jsonobject.toString(1).length(), unsorted.length());
+        assertEquals("{}", empty.write(new java.io.StringWriter(), 4, 0)
+                .toString());
+
+        JSONArray deep = new JSONArray();
+        JSONArray inner = deep;
+        for (int i = 0; i < 100; i += 1) {
+            JSONArray next = new JSONArray();
+            inner.put(next);
+            inner.put(i);
+            inner = next;
+        }
+        String text = deep.toString(1);
+        assertTrue(text.indexOf("\n" + new String(new char[100]).replace('\0',
+                ' ') + "99\n") > 0);
+        assertEquals(deep.toString(), new JSONArray(text).toString());
+    }
+
+
+    public void testSortedKeys() throws Exception {
+        JSONObject jsonobject = new JSONObject();
+        jsonobject.put("b", 2);
+        jsonobject.put("c", 3);
+        jsonobject.put("a", 1);
+        Iterator keys = jsonobject.sortedKeys();
+        assertEquals("a", keys.next());
+        assertEquals("b", keys.next());
+        assertEquals("c", keys.next());
+        assertFalse(keys.hasNext());
+
+        jsonobject.put("b", 4);
+        jsonobject.put("aa", new JSONArray("[{z: 1, y: [true]}]"));
+        jsonobject.remove("c");
+        assertEquals("{\"a\":1,\"aa\":[{\"y\":[true],\"z\":1}],\"b\":4}",
+                jsonobject.write(new StringWriter(), true).toString());
+
+        keys = jsonobject.keys();
+        while (keys.hasNext()) {
+            if (keys.next().equals("a")) {
+                keys.remove();
+            }
+        }
+        assertEquals("{\n \"aa\": [{\n  \"y\": [true],\n  \"z\": 1\n }],\n" +
+                " \"b\": 4\n}", jsonobject.toString(1));
+
+        JSONObject other = new JSONObject();
+        other.put("b", 4);
+        other.put("aa", new JSONArray("[{y: [true], z: 1}]"));
+        assertEquals(jsonobject.write(new StringWriter(), true).toString(),
+                other.write(new StringWriter(), true).toString());
+
+        Map map = new java.util.HashMap();
+        map.put("y", "2");
+        map.put("x", "1");
+        JSONArray jsonarray = new JSONArray();
+        jsonarray.put(map);
+        JSONTokener x = new JSONTokener("{\"q\": {\"s\": 1, \"r\": 2}}");
+        x.setLazy(true);
+        jsonarray.put(new JSONObject(x));
+        assertEquals("[{\"x\":\"1\",\"y\":\"2\"},{\"q\":{\"r\":2,\"s\":1}}]",
+                jsonarray.write(new StringWriter(), true).toString());
+    }
+
+
+    public void testKeyOrder() throws Exception {
+        JSONObject jsonobject = new JSONObject("{z: 1, y: 2, x: 3}");
+        assertEquals("{\"z\":1,\"y\":2,\"x\":3}", jsonobject.toString());
+        jsonobject.put("y", 4);
+        jsonobject.put("w", 5);
+        jsonobject.remove("z");
+        assertEquals("{\"y\":4,\"x\":3,\"w\":5}", jsonobject.toString());
+
+        jsonobject = new JSONObject();
+        for (int i = 0; i < 40; i += 1) {
+            jsonobject.put("k" + (i * 7 % 40), i);
+        }
+        Iterator keys = jsonobject.keys();
+        for (int i = 0; i < 40; i += 1) {
+            assertEquals("k" + (i * 7 % 40), keys.next());
+        }
+        assertFalse(keys.hasNext());
+        for (int i = 0; i < 40; i += 2) {
+            jsonobject.remove("k" + i);
+        }
+        assertEquals(20, jsonobject.length());
+        for (int i = 0; i < 40; i += 1) {
+            assertEquals(i % 2 == 0, jsonobject.isNull("k" + (i * 7 % 40)));
+            if (i % 2 != 0) {
+                assertEquals(i, jsonobject.getInt("k" + (i * 7 % 40)));
+            }
+        }
+        keys = jsonobject.keys();
+        while (keys.hasNext()) {
+            String key = (String)keys.next();
+            if (key.compareTo("k2") < 0) {
+                keys.remove();
+            }
+        }
+        assertEquals(14, jsonobject.length());
+        assertFalse(jsonobject.has("k1"));
+        assertFalse(jsonobject.has("k19"));
+        assertTrue(jsonobject.has("k39"));
+        assertEquals("k7", jsonobject.names().getString(0));
+
+        jsonobject = new JSONObject();
+        for (int i = 0; i < 40; i += 1) {
+            jsonobject.put("k" + i, i);
+        }
+        keys = jsonobject.keys();
+        for (int i = 0; i < 38; i += 1) {
+            keys.next();
+            if (i != 20) {
+                keys.remove();
+            }
+        }
+        assertEquals("k38", keys.next());
+        jsonobject.remove("k39");
+        jsonobject.put("k0", 0);
+        assertEquals("{\"k20\":20,\"k38\":38,\"k0\":0}",
+                jsonobject.toString());
+        assertEquals(38, jsonobject.getInt("k38"));
+        assertFalse(jsonobject.has("k39"));
+
+// Keys made of "Aa" and "BB" all have the same hash code.
+
+        StringBuffer sb = new StringBuffer("{");
+        String[] names = new String[1024];
+        for (int i = 0; i < names.length; i += 1) {
+            StringBuffer name = new StringBuffer();
+            for (int bit = 0; bit < 10; bit += 1) {
+                name.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+            }
+            names[i] = name.toString();
+            sb.append(i == 0 ? "" : ",");
+            sb.append("\"" + names[i] + "\":" + i);
+        }
+        sb.append("}");
+        jsonobject = new JSONObject(sb.toString());
+        assertEquals(1024, jsonobject.length());
+        assertEquals(names[0].hashCode(), names[1023].hashCode());
+        assertEquals(1023, jsonobject.getInt(names[1023]));
+        jsonobject.remove(names[0]);
+        jsonobject.put(names[0], 0);
+        keys = jsonobject.keys();
+        assertEquals(names[1], keys.next());
+        assertEquals(names[0], jsonobject.names().getString(1023));
+        assertEquals(new JSONObject(jsonobject.toString()).toString(),
+                jsonobject.toString());
+    }
+
+
+    public void testShapes() throws Exception {
+        StringBuffer sb = new StringBuffer("[");
+        for (int i = 0; i < 12; i += 1) {
+            sb.append("{\"id\": " + i + ", \"name\": \"n" + i + "\", \"f" +
+                    i + "\": true},");
+        }
+        sb.append("{\"id\": 99, \"name\": \"last\"}, {\"name\": 0, \"id\": 1}");
+        sb.append(", {");
+        for (int i = 0; i < 70; i += 1) {
+            sb.append("\"k" + i + "\": " + i + ",");
+        }
+        sb.append("\"end\": null}]");
+        JSONArray jsonarray = new JSONArray(sb.toString());
+
+        JSONObject first = jsonarray.getJSONObject(0);
+        JSONObject second = jsonarray.getJSONObject(1);
+        assertEquals("{\"id\":0,\"name\":\"n0\",\"f0\":true}",
+                first.toString());
+        assertEquals("{\"id\":11,\"name\":\"n11\",\"f11\":true}",
+                jsonarray.getJSONObject(11).toString());
+        assertEquals("{\"id\":99,\"name\":\"last\"}",
+                jsonarray.getJSONObject(12).toString());
+        assertEquals("{\"name\":0,\"id\":1}",
+                jsonarray.getJSONObject(13).toString());
+
+        first.put("extra", 1);
+        second.remove("id");
+        first.put("name", "changed");
+        assertEquals("{\"id\":0,\"name\":\"changed\",\"f0\":true,\"extra\":1}",
+                first.toString());
+        assertEquals("{\"name\":\"n1\",\"f1\":true}", second.toString());
+        assertEquals("{\"id\":2,\"name\":\"n2\",\"f2\":true}",
+                jsonarray.getJSONObject(2).toString());
+
+        JSONObject third = jsonarray.getJSONObject(3);
+        third.put("extra", 2);
+        assertEquals("{\"id\":3,\"name\":\"n3\",\"f3\":true,\"extra\":2}",
+                third.toString());
+        Iterator keys = third.keys();
+        keys.next();
+        keys.remove();
+        assertEquals("{\"name\":\"n3\",\"f3\":true,\"extra\":2}",
+                third.toString());
+        assertEquals("{\"id\":0,\"name\":\"changed\",\"f0\":true,\"extra\":1}",
+                first.toString());
+
+        JSONObject big = jsonarray.getJSONObject(14);
+        assertEquals(71, big.length());
+        assertEquals(69, big.getInt("k69"));
+        assertTrue(big.isNull("end"));
+        big.remove("k0");
+        big.put("k70", 70);
+        assertEquals(71, big.length());
+        assertEquals("k1", big.names().getString(0));
+        assertEquals("k70", big.names().getString(70));
+
+        sb = new StringBuffer("[");
+        for (int i = 0; i < 4096; i += 1) {
+            sb.append("{\"a" + (i % 8) + "\": " + i + ", \"b" + (i / 8 % 8) +
+                    "\": 0, \"c" + (i / 64 % 8) + "\": 0, \"d" + (i / 512) +
+                    "\": 0},");
+        }
+        sb.append("{}]");
+        jsonarray = new JSONArray(sb.toString());
+        JSONObject last = jsonarray.getJSONObject(4095);
+        assertEquals("{\"a7\":4095,\"b7\":0,\"c7\":0,\"d7\":0}",
+                last.toString());
+        last.remove("b7");
+        last.put("e", 1);
+        assertEquals("{\"a7\":4095,\"c7\":0,\"d7\":0,\"e\":1}",
+                last.toString());
+
+        java.lang.reflect.Field field =
+            JSONObject.class.getDeclaredField("map");
+        field.setAccessible(true);
+        Object map = field.get(jsonarray.getJSONObject(7));
+        field = CompactMap.class.getDeclaredField("shape");
+        field.setAccessible(true);
+        assertEquals(null, field.get(map));
+    }
+
+
+    public void testKeyCache() throws Exception {
+        JSONKeyCache cache = new JSONKeyCache(64);
+        String text = "[{\"name\": 1, \"id\": 2}, {\"name\": 3, 'id': 4}," +
+                " {\"na\\u006de\": 5, id: 6}]";
+        JSONTokener x = new JSONTokener(text);
+        x.setKeyCache(cache);
+        assertSame(cache, x.getKeyCache());
+        JSONArray jsonarray = new JSONArray(x);
+        assertEquals("[{\"name\":1,\"id\":2},{\"name\":3,\"id\":4}," +
+                "{\"name\":5,\"id\":6}]", jsonarray.toString());
+        String name = (String)jsonarray.getJSONObject(0).keys().next();
+        assertSame(name, jsonarray.getJSONObject(1).keys().next());
+        assertSame(name, jsonarray.getJSONObject(2).keys().next());
+        assertSame(name, cache.intern(new String("name")));
+
+        x = new JSONTokener(new java.io.StringReader(text));
+        x.setKeyCache(cache);
+        jsonarray = new JSONArray(x);
+        assertSame(name, jsonarray.getJSONObject(0).keys().next());
+
+        for (int i = 0; i < 2; i += 1) {
+            x = new JSONTokener("{\"name\": \"name\", \"a\nb\": 0}");
+            x.setKeyCache(i == 0 ? null : cache);
+            try {
+                new JSONObject(x);
+                fail("expecting JSONException here.");
+            } catch (JSONException jsone) {
+                assertEquals("Unterminated string at 20 [character 0 line 2]",
+                        jsone.getMessage());
+            }
+        }
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < 100; i += 1) {
+            sb.append('k');
+        }
+        String longKey = sb.toString();
+        x = new JSONTokener("{\"" + longKey + "\": 1}");
+        x.setKeyCache(cache);
+        assertEquals(1, new JSONObject(x).getInt(longKey));
+        assertEquals(longKey, cache.intern(longKey));
+    }
+
+
+    public void testNumberArrays() throws Exception {
+        JSONArray longs = new JSONArray("[1, -2, 3000000000, 4]");
+        assertEquals(new Integer(1), longs.get(0));
+        assertEquals(new Long(3000000000L), longs.get(2));
+        assertEquals(3000000000L, longs.getLong(2));
+        assertEquals(-2.0, longs.getDouble(1), 0);
+        assertEquals("[1,-2,3000000000,4]", longs.toString());
+        long[] la = longs.toLongArray();
+        assertEquals(4, la.length);
+        assertEquals(3000000000L, la[2]);
+        assertEquals(4.0, longs.toDoubleArray()[3], 0);
+
+        JSONArray doubles = new JSONArray("[1.5, -2.25, 1e3]");
+        assertEquals(new Double(1.5), doubles.get(0));
+        assertEquals(-2.25, doubles.getDouble(1), 0);
+        assertEquals(-2, doubles.getLong(1));
+        assertEquals("[1.5,-2.25,1000]", doubles.toString());
+        assertEquals("[\n  1.5,\n  -2.25,\n  1000\n]", doubles.toString(2));
+        doubles.put(4.0);
+        doubles.put(1, 0.5);
+        assertEquals("[1.5,0.5,1000,4]", doubles.toString());
+        doubles.remove(0);
+        assertEquals(0.5, doubles.toDoubleArray()[0], 0);
+
+        doubles.put(7);
+        assertEquals(new Integer(7), doubles.get(3));
+        assertEquals("[0.5,1000,4,7]", doubles.toString());
+        longs.put(2, "three");
+        assertEquals("[1,-2,\"three\",4]", longs.toString());
+
+        JSONArray integers = new JSONArray("[1,2,3000000000]");
+        integers.put(Long.valueOf(5));
+        integers.put(Long.valueOf(6000000000L));
+        assertEquals(Long.valueOf(5), (Long)integers.get(3));
+        assertEquals(Long.valueOf(6000000000L), (Long)integers.get(4));
+        assertEquals(Integer.valueOf(2), (Integer)integers.get(1));
+        assertEquals("[1,2,3000000000,5,6000000000]", integers.toString());
+        try {
+            longs.toLongArray();
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("JSONArray[2] is not a number.", jsone.getMessage());
+        }
+
+        JSONArray mixed = new JSONArray("[1, 2.5, 3]");
+        assertEquals(new Integer(1), mixed.get(0));
+        assertEquals(new Double(2.5), mixed.get(1));
+        assertEquals("[1,2.5,3]", mixed.toString());
+        assertEquals(2.5, mixed.toDoubleArray()[1], 0);
+        assertEquals(3, mixed.toLongArray()[2]);
+
+        NumberList numbers = new NumberList();
+        numbers.add(Integer.valueOf(1));
+        numbers.add(Long.valueOf(3000000000L));
+        numbers.add(Double.valueOf(2.5));
+        assertTrue(numbers.isNumbers());
+        for (int i = 0; i < 70; i += 1) {
+            numbers.add(i % 2 == 0 ? (Object)Integer.valueOf(i) :
+                    (Object)Double.valueOf(i + 0.5));
+        }
+        numbers.add(0, Double.valueOf(-0.5));
+        numbers.remove(3);
+        numbers.set(1, Double.valueOf(1.0));
+        numbers.set(2, Integer.valueOf(-7));
+        assertTrue(numbers.isNumbers());
+        assertEquals(Double.valueOf(-0.5), numbers.get(0));
+        assertEquals(Double.valueOf(1.0), numbers.get(1));
+        assertEquals(Integer.valueOf(-7), numbers.get(2));
+        assertEquals(Integer.valueOf(0), numbers.get(3));
+        assertEquals(Double.valueOf(1.5), numbers.get(4));
+        assertEquals(Integer.valueOf(68), numbers.get(71));
+        assertEquals(Double.valueOf(69.5), numbers.get(72));
+        assertEquals(new ArrayList(numbers).hashCode(), numbers.hashCode());
+        assertEquals(new ArrayList(numbers), numbers.copy());
+        numbers.add(Long.valueOf(1L << 60));
+        assertTrue(!numbers.isNumbers());
+        assertEquals(Integer.valueOf(68), numbers.get(71));
+        assertEquals(Long.valueOf(1L << 60), numbers.get(73));
+
+        mixed = new JSONArray("[1, null, 3]");
+        assertTrue(mixed.isNull(1));
+        mixed = new JSONArray("[1.0, 1e400]");
+        try {
+            mixed.toString(0);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("JSON does not allow non-finite numbers.",
+                    jsone.getMessage());
+        }
+        assertEquals(null, mixed.toString());
+        try {
+            new JSONArray().getDouble(0);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+            assertEquals("JSONArray[0] not found.", jsone.getMessage());
+        }
+    }
+
+
+    public void testFreeze() throws Exception {
+        JSONObject jsonobject = new JSONObject(
+                "{\"b\":[1,2,{\"c\":true}],\"a\":\"x\",\"n\":[1.5,2.5]}");
+        JSONObject frozen = jsonobject.freeze();
+        assertTrue(frozen != jsonobject);
+        assertTrue(frozen == frozen.freeze());
+        String string = frozen.toString();
+        assertEquals("{\"b\":[1,2,{\"c\":true}],\"a\":\"x\",\"n\":[1.5,2.5]}",
+                string);
+        assertTrue(string == frozen.toString());
+        assertEquals(string, frozen.write(new StringWriter()).toString());
+        assertEquals("{\"a\":\"x\",\"b\":[1,2,{\"c\":true}],\"n\":[1.5,2.5]}",
+                frozen.write(new StringWriter(), true).toString());
+        assertEquals(2.5, frozen.getJSONArray("n").getDouble(1), 0);
+
+        jsonobject.put("a", "y");
+        jsonobject.getJSONArray("b").put(3);
+        assertEquals("x", frozen.getString("a"));
+        assertEquals(3, frozen.getJSONArray("b").length());
+
+        try {
+            frozen.put("a", "z");
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("JSONObject is frozen.", e.getMessage());
+        }
+        try {
+            frozen.remove("a");
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            frozen.getJSONArray("b").getJSONObject(2).accumulate("c", "d");
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            frozen.getJSONArray("n").put(3.5);
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+            assertEquals("JSONArray is frozen.", e.getMessage());
+        }
+        try {
+            Iterator keys = frozen.keys();
+            keys.next();
+            keys.remove();
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+
+        JSONObject other = new JSONObject(
+                "{\"n\":[1.5,2.5],\"a\":\"x\",\"b\":[1,2,{\"c\":true}]}").freeze();
+        assertTrue(frozen.equals(other));
+        assertEquals(frozen.hashCode(), other.hashCode());
+        assertTrue(!frozen.equals(jsonobject));
+        assertTrue(!jsonobject.equals(new JSONObject(jsonobject.toString())));
+
+        List boxed = new ArrayList();
+        boxed.add(Integer.valueOf(-1));
+        boxed.add(Long.valueOf(-3000000000L));
+        boxed.add(Integer.valueOf(7));
+        assertEquals(boxed.hashCode(),
+                new JSONArray("[-1,-3000000000,7]").freeze().hashCode());
+        boxed.clear();
+        boxed.add(Double.valueOf(-1.5));
+        boxed.add(Double.valueOf(0.0));
+        assertEquals(boxed.hashCode(),
+                new JSONArray("[-1.5,0.0]").freeze().hashCode());
+
+        Map map = new HashMap();
+        map.put("list", new int[] {1, 2});
+        frozen = new JSONObject(map).freeze();
+        assertEquals("{\"list\":[1,2]}", frozen.toString());
+        try {
+            frozen.getJSONArray("list").remove(0);
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    public void testWith() throws Exception {
+        String     string;
+        JSONObject base = new JSONObject();
+        for (int i = 0; i < 20; i += 1) {
+            base.put("k" + i, i);
+        }
+        base.put("list", new JSONArray("[\"a\",\"b\"]"));
+        JSONObject frozen = base.freeze();
+        JSONObject changed = frozen.with("k3", "three").with("new", true);
+        assertEquals(3, frozen.getInt("k3"));
+        assertEquals("three", changed.getString("k3"));
+        assertEquals(22, changed.length());
+        assertTrue(!frozen.has("new"));
+        assertTrue(changed.toString().indexOf(
+                ",\"k3\":\"three\",\"k4\":4,") > 0);
+        string = changed.toString();
+        assertEquals(",\"k19\":19,\"list\":[\"a\",\"b\"],\"new\":true}",
+                string.substring(string.indexOf(",\"k19\"")));
+        try {
+            changed.put("k3", 3);
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+
+        JSONObject restored = changed.with("k3", 3).without("new");
+        assertTrue(restored.equals(frozen));
+        assertEquals(frozen.hashCode(), restored.hashCode());
+        assertEquals(frozen.toString(), restored.toString());
+        assertTrue(restored.without("missing") == restored);
+        assertEquals(21, base.length());
+
+        JSONObject small = new JSONObject("{\"a\":1}").with("b", 2);
+        assertEquals("{\"a\":1,\"b\":2}", small.toString());
+        assertEquals("{\"b\":2}", small.without("a").toString());
+        assertEquals("{\"a\":1}", small.with("b", null).toString());
+
+        JSONArray list = frozen.getJSONArray("list");
+        JSONArray longer = list.with("c").with(4, "e");
+        assertEquals("[\"a\",\"b\"]", list.toString());
+        assertEquals("[\"a\",\"b\",\"c\",null,\"e\"]", longer.toString());
+        assertTrue(longer.with(1, "b").equals(longer));
+        assertTrue(!longer.with(1, "x").equals(longer));
+        assertEquals(new JSONArray(longer.toString()).freeze().hashCode(),
+                longer.hashCode());
+        assertEquals(new JSONArray("[\"a\",\"x\",\"c\",null,\"e\"]")
+                .freeze().hashCode(), longer.with(1, "x").hashCode());
+        JSONArray numbers = new JSONArray("[1,2,3]").freeze().with(0, 7);
+        assertEquals("[7,2,3]", numbers.toString());
+        assertTrue(numbers.equals(new JSONArray("[7,2,3]").freeze()));
+    }
+
+    public void testConcurrent() throws Exception {
+        final JSONObject jsonobject = JSONObject.concurrent();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < 1000; i += 1) {
+                            jsonobject.increment("count");
+                            jsonobject.accumulate("log", new Integer(i));
+                            if (i % 100 == 0) {
+                                new JSONObject(jsonobject.toString());
+                            }
+                        }
+                    } catch (JSONException e) {
+                        throw new RuntimeException(e.toString());
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t += 1) {
+            threads[t].join();
+        }
+        assertEquals(4000, jsonobject.getInt("count"));
+        assertEquals(4000, jsonobject.getJSONArray("log").length());
+        try {
+            jsonobject.getJSONArray("log").put(1);
+            fail("expecting UnsupportedOperationException here.");
+        } catch (UnsupportedOperationException e) {
+        }
+
+        jsonobject.remove("log");
+        jsonobject.append("list", "a");
+        jsonobject.append("list", "b");
+        jsonobject.putOnce("once", Boolean.TRUE);
+        try {
+            jsonobject.putOnce("once", Boolean.FALSE);
+            fail("expecting JSONException here.");
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"once\"", e.getMessage());
+        }
+        assertEquals("{\"count\":4000,\"list\":[\"a\",\"b\"],\"once\":true}",
+                jsonobject.write(new StringWriter(), true).toString());
+        assertEquals("{\n  \"count\": 4000,\n  \"list\": [\n    \"a\",\n" +
+                "    \"b\"\n  ],\n  \"once\": true\n}",
+                jsonobject.toString(2));
+        assertEquals(3, new JSONObject(jsonobject.toString()).length());
+        assertTrue(jsonobject.freeze().equals(
+                new JSONObject(jsonobject.toString()).freeze()));
+    }
+
+    public void testBeanProperties() throws Exception {
+        JSONObject a = new JSONObject(new Beany("a", 1, true));
+        JSONObject b = new JSONObject(new Beany("b", 2, false));
+        assertEquals(5, b.length());
+        assertEquals("b", b.getString("string"));
+        assertEquals(2, b.getInt("number"));
+        assertTrue(!b.getBoolean("boolean"));
+        assertEquals("All uppercase key", b.getString("BENT"));
+        assertEquals("x", b.getString("x"));
+        Iterator ka = a.keys();
+        Iterator kb = b.keys();
+        while (ka.hasNext()) {
+            assertTrue(ka.next() == kb.next());
+        }
+    }
+
+    public void testWriteBean() throws Exception {
+        Beany beany = new Beany("A \"beany\" object", 0.25, true);
+        assertEquals(new JSONObject(beany).toString(),
+                JSONObject.writeBean(new StringWriter(), beany).toString());
+
+        Shelf shelf = new Shelf("top", new Shelf("bottom", null));
+        String string = JSONObject.writeBean(new StringWriter(), shelf)
+                .toString();
+        assertEquals(new JSONObject(shelf).toString(), string);
+        JSONObject jsonobject = new JSONObject(string);
+        assertEquals("bottom", jsonobject.getJSONObject("below")
+                .getString("name"));
+        assertEquals(1.5, jsonobject.getDouble("weight"), 0);
+        assertEquals(2, jsonobject.getJSONArray("items").length());
+        assertTrue(!jsonobject.getJSONObject("below").has("below"));
+
+        StringWriter sw = new StringWriter();
+        new JSONWriter(sw).array().bean(shelf).value(1).endArray();
+        assertEquals("[" + string + ",1]", sw.toString());
+    }
+
+    /**
+     * Shelf is a bean whose getters return several types of values,
+     * including another Shelf.
+     */
+    public static class Shelf {
+        private Shelf below;
+        private String name;
+
+        public Shelf(String name, Shelf below) {
+            this.name = name;
+            this.below = below;
+        }
+
+        public Shelf getBelow() {
+            return this.below;
+        }
+
+        public List getItems() {
+            List items = new ArrayList();
+            items.add("book");
+            items.add(new Integer(3));
+            return items;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isEmpty() {
+            return false;
+        }
+
+        public float getWeight() {
+            return 1.5f;
+        }
+
+        public long getCount() {
+            return 2;
+        }
+    }
+
+    public void testBinder() throws Exception {
+        String string = "{title:'Walden',pages:'352',price:9.5," +
+            "isbn:9780691096124,available:true,ratings:[5,4,3]," +
+            "related:[{title:'Civil Disobedience',pages:48}]," +
+            "unknown:{a:[1,{b:2}]},note:null}";
+        Book[] books = new Book[] {
+            (Book)JSONBinder.bind(new JSONObject(string), Book.class),
+            (Book)JSONBinder.read(new JSONTokener(string), Book.class)
+        };
+        for (int i = 0; i < books.length; i += 1) {
+            Book book = books[i];
+            assertEquals("Walden", book.getTitle());
+            assertEquals(352, book.getPages());
+            assertEquals(9.5, book.getPrice(), 0);
+            assertEquals(9780691096124L, book.getIsbn());
+            assertTrue(book.isAvailable());
+            assertEquals(3, book.ratings.length);
+            assertEquals(4, book.ratings[1]);
+            assertEquals(1, book.related.length);
+            assertEquals("Civil Disobedience", book.related[0].getTitle());
+            assertEquals(48, book.related[0].getPages());
+            assertNull(book.related[0].ratings);
+            assertNull(book.note);
+        }
+
+        long[] longs = (long[])JSONBinder.read(
+                new JSONTokener("[1,2,3,4,5,6,7,8,9,10]"), long[].class);
+        assertEquals(10, longs.length);
+        assertEquals(10, longs[9]);
+        List list = (List)JSONBinder.bind(new JSONArray("[1,'two',null]"),
+                List.class);
+        assertEquals(3, list.size());
+        assertEquals("two", list.get(1));
+        assertNull(list.get(2));
+        Map map = (Map)JSONBinder.read(new JSONTokener("{a:{b:1}}"),
+                Map.class);
+        assertEquals(1, ((JSONObject)map.get("a")).getInt("b"));
+
+        try {
+            JSONBinder.read(new JSONTokener("{pages:'many'}"), Book.class);
+            fail("expected an exception");
+        } catch (JSONException jsone) {
+            assertEquals("Cannot bind \"many\" to int.", jsone.getMessage());
+        }
+        try {
+            JSONBinder.bind(new JSONArray("[1]"), Book.class);
+            fail("expected an exception");
+        } catch (JSONException jsone) {
+            assertEquals("Cannot bind a JSONArray to org.json.Test$Book.",
+                    jsone.getMessage());
+        }
+    }
+
+    /**
+     * Book is a bean with setters of several types, and public fields.
+     */
+    public static class Book {
+        private boolean available;
+        private long isbn;
+        public String note = "none";
+        private int pages;
+        private double price;
+        public int[] ratings;
+        public Book[] related;
+        private String title;
+
+        public long getIsbn() {
+            return this.isbn;
+        }
+
+        public int getPages() {
+            return this.pages;
+        }
+
+        public double getPrice() {
+            return this.price;
+        }
+
+        public String getTitle() {
+            return this.title;
+        }
+
+        public boolean isAvailable() {
+            return this.available;
+        }
+
+        public void setAvailable(boolean available) {
+            this.available = available;
+        }
+
+        public void setIsbn(long isbn) {
+            this.isbn = isbn;
+        }
+
+        public void setPages(int pages) {
+            this.pages = pages;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+    }
+
+
+    public void testWrap() throws Exception {
+        for (int i = 0; i < 2; i += 1) {
+            assertEquals(JSONObject.NULL, JSONObject.wrap(null));
+            assertEquals("1.5",
+                    JSONObject.wrap(new java.math.BigDecimal("1.5")));
+            assertEquals(new Character('c'),
+                    JSONObject.wrap(new Character('c')));
+            assertTrue(JSONObject.wrap(new ArrayList()) instanceof JSONArray);
+            assertTrue(JSONObject.wrap(new int[] {1, 2}) instanceof JSONArray);
+            assertTrue(JSONObject.wrap(new HashMap()) instanceof JSONObject);
+            assertTrue(JSONObject.wrap(new Book()) instanceof JSONObject);
+
+            assertEquals("1.5", JSONObject.valueToString(
+                    new java.math.BigDecimal("1.50")));
+            assertEquals("\"c\"", JSONObject.valueToString(new Character('c')));
+            assertEquals("[1,2]", JSONObject.valueToString(new int[] {1, 2}));
+            assertEquals("null", JSONObject.valueToString(JSONObject.NULL));
+        }
+    }
+
+
+    public void testByteWriter() throws Exception {
+        JSONObject jsonobject = new JSONObject(
+                "{name:'caf\u00e9 \u2028 \u20ac </p> \ud83d\ude00',count:-42," +
+                "big:-9223372036854775808,ratio:0.1,list:[1,2,3,1.5]," +
+                "shelf:null,ok:true}");
+        jsonobject.put("weight", new Float(1.25f));
+        jsonobject.put("shelf", new Shelf("top", null));
+        byte[] expected = jsonobject.toString().getBytes("UTF-8");
+
+        java.io.ByteArrayOutputStream out =
+            new java.io.ByteArrayOutputStream();
+        JSONByteWriter writer = new JSONByteWriter(out, 32);
+        jsonobject.write(writer);
+        writer.flush();
+        assertEquals(new String(expected, "UTF-8"),
+                new String(out.toByteArray(), "UTF-8"));
+        assertTrue(java.util.Arrays.equals(expected, out.toByteArray()));
+
+        out = new java.io.ByteArrayOutputStream();
+        writer = new JSONByteWriter(java.nio.channels.Channels
+                .newChannel(out));
+        writer.write("[\ud83d");
+        writer.write('\ude00');
+        writer.write("\ud83d]");
+        writer.close();
+        assertEquals("[\ud83d\ude00?]",
+                new String(out.toByteArray(), "UTF-8"));
+    }
+
+
+    public void testBufferPool() throws Exception {
+        JSONBufferPool pool = new JSONBufferPool(64, 4);
+        JSONArray jsonarray = new JSONArray();
+        for (int i = 0; i < 100; i += 1) {
+            jsonarray.put("caf\u00e9 " + i);
+        }
+        byte[] expected = jsonarray.toString().getBytes("UTF-8");
+        ByteBuffer[] buffers = jsonarray.write(pool);
+        assertTrue(buffers.length > 1);
+        java.io.ByteArrayOutputStream out =
+            new java.io.ByteArrayOutputStream();
+        for (int i = 0; i < buffers.length; i += 1) {
+            assertTrue(buffers[i].isDirect());
+            while (buffers[i].hasRemaining()) {
+                out.write(buffers[i].get());
+            }
+        }
+        assertTrue(java.util.Arrays.equals(expected, out.toByteArray()));
+        pool.release(buffers);
+        ByteBuffer buffer = pool.acquire();
+        assertSame(buffers[0], buffer);
+        assertEquals(0, buffer.position());
+        assertEquals(64, buffer.limit());
+
+        JSONByteWriter writer = new JSONByteWriter(pool);
+        new JSONWriter(writer).object().key("a").value(1).endObject();
+        buffers = writer.toBuffers();
+        assertEquals(1, buffers.length);
+        assertEquals(7, buffers[0].remaining());
+        assertEquals(0, writer.toBuffers().length);
+
+        final int[] outstanding = new int[1];
+        pool = new JSONBufferPool(64, 4) {
+            public ByteBuffer acquire() {
+                outstanding[0] += 1;
+                return super.acquire();
+            }
+
+            public void release(ByteBuffer buffer) {
+                outstanding[0] -= 1;
+                super.release(buffer);
+            }
+        };
+        buffers = jsonarray.write(pool);
+        assertEquals(buffers.length, outstanding[0]);
+        pool.release(buffers);
+        jsonarray.put(new JSONString() {
+            public String toJSONString() {
+                throw new IllegalStateException("failed");
+            }
+        });
+        jsonarray.put(0, new String(new char[10000]).replace('\0', 'x'));
+        try {
+            jsonarray.write(pool);
+            fail("expecting JSONException here.");
+        } catch (JSONException jsone) {
+        }
+        assertEquals(0, outstanding[0]);
+    }
+
+
+    public void testWriterDepth() throws Exception {
+        JSONStringer jsonstringer = new JSONStringer();
+        for (int i = 0; i < 1000; i += 1) {
+            jsonstringer.object().key("a");
+        }
+        jsonstringer.array().endArray();
+        for (int i = 0; i < 1000; i += 1) {
+            jsonstringer.endObject();
+        }
+        String string = jsonstringer.toString();
+        assertEquals(1000 * 6 + 2, string.length());
+        assertTrue(string.startsWith("{\"a\":{\"a\":{"));
+
+        jsonstringer = new JSONStringer();
+        jsonstringer.array()
+            .object().key("a").value(1).endObject()
+            .object().key("a").value(2).key("b").value(3).endObject()
+            .endArray();
+        assertEquals("[{\"a\":1},{\"a\":2,\"b\":3}]", jsonstringer.toString());
+
+        jsonstringer = new JSONStringer();
+        jsonstringer.array();
+        for (int n = 0; n < 3; n += 1) {
+            jsonstringer.object();
+            for (int i = 0; i < 100; i += 1) {
+                jsonstringer.key("k" + i).value(n);
+            }
+            jsonstringer.endObject();
+        }
+        jsonstringer.object().key("k0").value(3).endObject().endArray();
+        assertEquals(2, new JSONArray(jsonstringer.toString())
+                .getJSONObject(2).getInt("k99"));
+        assertTrue(jsonstringer.toString().endsWith(",{\"k0\":3}]"));
+        try {
+            new JSONStringer().object().key("a").value(1)
+                .key("b").object().key("a").value(2).endObject()
+                .key("a");
+            fail("expected an exception");
+        } catch (JSONException jsone) {
+            assertEquals("Duplicate key \"a\"", jsone.getMessage());
+        }
+        jsonstringer = new JSONStringer(false);
+        jsonstringer.object().key("a").value(1).key("a").value(2).endObject();
+        assertEquals("{\"a\":1,\"a\":2}", jsonstringer.toString());
+    }
+
+
+    public void testAccessors() throws Exception {
+        Label label = new Label();
+        assertEquals("{\"text\":\"plain\"}",
+                JSONObject.writeBean(new StringWriter(), label).toString());
+        assertEquals("{\"text\":\"plain\"}", new JSONObject(label).toString());
+        assertEquals("{\"text\":\"plain\",\"KIND\":\"label\"}",
+                new JSONObject(label,
+                    new String[] {"text", "KIND", "none"}).toString());
+
+        label.text = "again";
+        assertSame(BeanProperties.forClass(Label.class),
+                BeanProperties.forClass(label.getClass()));
+        assertEquals("{\"text\":\"again\"}",
+                JSONObject.writeBean(new StringWriter(), label).toString());
+        assertEquals("{\"KIND\":\"label\",\"text\":\"again\"}",
+                new JSONObject(label,
+                    new String[] {"KIND", "text"}).toString());
+
+        Object hidden = new Isolating().loadClass(Label.class.getName())
+                .newInstance();
+        assertTrue(hidden.getClass() != Label.class);
+        assertEquals("{\"text\":\"plain\"}",
+                JSONObject.writeBean(new StringWriter(), hidden).toString());
+        assertEquals("{\"text\":\"plain\"}", new JSONObject(hidden).toString());
+        assertEquals("{\"text\":\"plain\",\"KIND\":\"label\"}",
+                new JSONObject(hidden,
+                    new String[] {"text", "KIND"}).toString());
+
+        assertEquals("{\"count\":7}",
+                JSONObject.writeBean(new StringWriter(), new Tally())
+                    .toString());
+        assertEquals("{\"count\":7}", new JSONObject(new Tally()).toString());
+    }
+
+    /**
+     * Label is a public bean with a getter and public fields. Its getter is
+     * read through a Function, unless it is loaded by an Isolating class
+     * loader, which the Function could not name.
+     */
+    public static class Label {
+        public static final String KIND = "label";
+
+        public String text = "plain";
+
+        public String getText() {
+            return this.text;
+        }
+    }
+
+    /**
+     * Tally has a static getter, which a Function or a method handle of an
+     * instance cannot call, so it is read with reflection.
+     */
+    public static class Tally {
+        public static int getCount() {
+            return 7;
+        }
+    }
+
+    /**
+     * Isolating is a class loader that loads its own copy of Label.
+     */
+    static class Isolating extends ClassLoader {
+        Isolating() {
+            super(Test.class.getClassLoader());
+        }
+
+        protected synchronized Class loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+            if (!name.equals(Label.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            Class klass = findLoadedClass(name);
+            if (klass == null) {
+                try {
+                    InputStream in = Test.class.getResourceAsStream(
+                            "Test$Label.class");
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    int count;
+                    while ((count = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, count);
+                    }
+                    in.close();
+                    byte[] bytes = out.toByteArray();
+                    klass = defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+            return klass;
+        }
+    }
+
+
     /**
      * Beany is a typical class that implements JSONString. It also
      * provides some beany methods that can be used to
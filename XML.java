@@ -31,7 +31,7 @@ import java.util.Iterator;
  * This provides static methods to convert an XML text into a JSONObject,
  * and to covert a JSONObject into an XML text.
  * @author JSON.org
- * @version 2010-12-24
+ * @version 2026-10-17
  */
 public class XML {
 
@@ -314,29 +314,28 @@ public class XML {
 // If it might be a number, try converting it. If that doesn't work, 
 // return the string.
 
-        try {
-	        char initial = string.charAt(0);
-	        boolean negative = false;
-	        if (initial == '-') {
-	        	initial = string.charAt(1);
-	        	negative = true;
-	        }
-	        if (initial == '0' && string.charAt(negative ? 2 : 1) == '0') {
-	        	return string;
-	        }
-	        if ((initial >= '0' && initial <= '9')) {
+        int length = string.length();
+        boolean negative = string.charAt(0) == '-';
+        int start = negative ? 1 : 0;
+        if (start < length) {
+            char initial = string.charAt(start);
+            if (initial == '0' && (start + 1 == length ||
+                    string.charAt(start + 1) == '0')) {
+                return string;
+            }
+            if (initial >= '0' && initial <= '9') {
                 if (string.indexOf('.') >= 0) {
-                    return Double.valueOf(string);
-                } else if (string.indexOf('e') < 0 && string.indexOf('E') < 0) {
-                    Long myLong = new Long(string);
-                    if (myLong.longValue() == myLong.intValue()) {
-                        return new Integer(myLong.intValue());
-                    } else {
-                        return myLong;
+                    if (JSONTokener.isDecimal(string)) {
+                        return Double.valueOf(string);
+                    }
+                } else if (string.indexOf('e') < 0 &&
+                        string.indexOf('E') < 0) {
+                    Number number = JSONTokener.scanInteger(string, 0, 10);
+                    if (number != null) {
+                        return number;
                     }
                 }
-	        }
-        }  catch (Exception ignore) {
+            }
         }
         return string;
     }